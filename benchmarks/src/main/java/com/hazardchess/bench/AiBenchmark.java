@@ -0,0 +1,60 @@
+package com.hazardchess.bench;
+
+import com.hazardchess.ai.AiDifficulty;
+import com.hazardchess.ai.SimpleAi;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Move;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AiBenchmark {
+  private static final int HARD_DEPTH = 3;
+  private static final int EXPERT_VISITS = 2_000;
+  private static final long UNBOUNDED_MILLIS = 60_000;
+  private static final int HASH_MEGABYTES = 1;
+
+  @Param({"EASY", "NORMAL", "HARD", "EXPERT"})
+  public AiDifficulty difficulty;
+
+  private SimpleAi ai;
+  private GameState state;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    state = Positions.hazardGame();
+    for (Move move : Positions.randomGame(20, 11L)) {
+      state.applyMove(move);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void freshAi() {
+    ai = new SimpleAi(HASH_MEGABYTES);
+    ai.setSearchThreads(1);
+    ai.setSearchDepth(HARD_DEPTH);
+    ai.setExpertVisits(EXPERT_VISITS);
+    ai.setSearchBudgetMillis(UNBOUNDED_MILLIS);
+  }
+
+  @Benchmark
+  public Move chooseMove() {
+    return ai.chooseMove(state, difficulty);
+  }
+}
@@ -0,0 +1,23 @@
+package com.hazardchess.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public final class BenchmarkMain {
+  private BenchmarkMain() {
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(commandLine);
+    if (commandLine.getProfilers().isEmpty()) {
+      options.addProfiler(GCProfiler.class);
+    }
+    new Runner(options.build()).run();
+  }
+}
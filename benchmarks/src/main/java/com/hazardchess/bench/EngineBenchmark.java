@@ -0,0 +1,55 @@
+package com.hazardchess.bench;
+
+import com.hazardchess.model.ChessEngine;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Move;
+import com.hazardchess.model.io.Fen;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+  @Param({"start", "kiwipete"})
+  public String position;
+
+  private final ChessEngine engine = new ChessEngine();
+  private GameState state;
+  private GameState mated;
+
+  @Setup
+  public void setUp() {
+    state = Fen.parse("kiwipete".equals(position) ? Positions.KIWIPETE : Fen.START);
+    mated = Fen.parse(Positions.FOOLS_MATE);
+  }
+
+  @Benchmark
+  public List<Move> legalMoves() {
+    return engine.legalMoves(state);
+  }
+
+  @Benchmark
+  public boolean isCheckmate() {
+    return engine.isCheckmate(mated, mated.getToMove());
+  }
+
+  @Benchmark
+  public boolean isCheckmateNotInCheck() {
+    return engine.isCheckmate(state, state.getToMove());
+  }
+}
@@ -0,0 +1,73 @@
+package com.hazardchess.bench;
+
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Move;
+import com.hazardchess.model.MoveUndo;
+import com.hazardchess.model.PersistentGameState;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateBenchmark {
+  private static final int GAME_PLIES = 60;
+
+  private List<Move> game;
+  private GameState state;
+  private GameState played;
+  private Move opening;
+
+  @Setup
+  public void setUp() {
+    game = Positions.randomGame(GAME_PLIES, 7L);
+    state = Positions.hazardGame();
+    opening = game.get(0);
+    played = applyMoveGame();
+  }
+
+  @Benchmark
+  public GameState applyMoveGame() {
+    GameState replay = Positions.hazardGame();
+    for (Move move : game) {
+      replay.applyMove(move);
+    }
+    return replay;
+  }
+
+  @Benchmark
+  public GameState copyPlayedGame() {
+    return played.copy();
+  }
+
+  @Benchmark
+  public PersistentGameState snapshotPlayedGame() {
+    return played.snapshot();
+  }
+
+  @Benchmark
+  public GameState newGame() {
+    return Positions.hazardGame();
+  }
+
+  @Benchmark
+  public long makeUnmakeMove() {
+    MoveUndo undo = state.makeMove(opening);
+    long key = state.getPositionKey();
+    state.unmakeMove(undo);
+    return key;
+  }
+}
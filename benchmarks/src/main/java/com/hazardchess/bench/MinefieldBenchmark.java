@@ -0,0 +1,67 @@
+package com.hazardchess.bench;
+
+import com.hazardchess.model.Board;
+import com.hazardchess.model.Minefield;
+import com.hazardchess.model.PlayerColor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MinefieldBenchmark {
+  @Param({"4", "14"})
+  public int mineCount;
+
+  private final Minefield minefield = new Minefield();
+  private boolean[][] mines;
+  private final boolean[][] empty = new boolean[Board.SIZE][Board.SIZE];
+  private final int[][] noArmed = new int[Board.SIZE][Board.SIZE];
+  private int startRow;
+  private int startCol;
+
+  @Setup
+  public void setUp() {
+    minefield.generate(mineCount, new java.util.Random(Positions.MINE_SEED), null);
+    mines = minefield.copyMines();
+    for (int row = 0; row < Board.SIZE; row++) {
+      for (int col = 0; col < Board.SIZE; col++) {
+        if (!mines[row][col] && minefield.adjacentMines(row, col) == 0) {
+          startRow = row;
+          startCol = col;
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public Minefield resetOnly() {
+    minefield.setState(mines, empty, empty, empty, empty, noArmed);
+    return minefield;
+  }
+
+  @Benchmark
+  public Minefield revealFlood() {
+    minefield.setState(mines, empty, empty, empty, empty, noArmed);
+    minefield.revealFlood(startRow, startCol, PlayerColor.WHITE);
+    return minefield;
+  }
+
+  @Benchmark
+  public int countFlagsAround() {
+    return minefield.countFlagsAround(startRow, startCol, PlayerColor.WHITE);
+  }
+}
@@ -0,0 +1,39 @@
+package com.hazardchess.bench;
+
+import com.hazardchess.model.ChessEngine;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Move;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class Positions {
+  static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+  static final String FOOLS_MATE = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3";
+  static final int MINES = 14;
+  static final long MINE_SEED = 42L;
+
+  private Positions() {
+  }
+
+  static GameState hazardGame() {
+    return new GameState(MINES, new Random(MINE_SEED));
+  }
+
+  static List<Move> randomGame(int plies, long seed) {
+    ChessEngine engine = new ChessEngine();
+    GameState state = hazardGame();
+    Random random = new Random(seed);
+    List<Move> moves = new ArrayList<>();
+    for (int ply = 0; ply < plies; ply++) {
+      List<Move> legal = engine.legalMoves(state);
+      if (legal.isEmpty()) {
+        break;
+      }
+      Move move = legal.get(random.nextInt(legal.size()));
+      state.applyMove(move);
+      moves.add(move);
+    }
+    return moves;
+  }
+}
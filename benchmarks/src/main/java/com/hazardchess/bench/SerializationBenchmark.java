@@ -0,0 +1,81 @@
+package com.hazardchess.bench;
+
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Move;
+import com.hazardchess.model.io.GameStateBinary;
+import com.hazardchess.model.io.GameStateJson;
+import com.hazardchess.model.io.GameStateStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+  @Param({"10", "120"})
+  public int plies;
+
+  @Param({"json", "binary"})
+  public String format;
+
+  private final GameStateJson json = new GameStateJson();
+  private final GameStateBinary binary = new GameStateBinary();
+  private final GameStateStore store = new GameStateStore();
+  private GameState state;
+  private Path savePath;
+  private Path loadPath;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    state = Positions.hazardGame();
+    for (Move move : Positions.randomGame(plies, 3L)) {
+      state.applyMove(move);
+    }
+    savePath = Files.createTempFile("hazard-bench-save", "." + format);
+    loadPath = Files.createTempFile("hazard-bench-load", "." + format);
+    save(loadPath);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(savePath);
+    Files.deleteIfExists(loadPath);
+  }
+
+  @Benchmark
+  public Path save() throws IOException {
+    save(savePath);
+    return savePath;
+  }
+
+  @Benchmark
+  public GameState load() throws IOException {
+    return store.load(loadPath);
+  }
+
+  private void save(Path path) throws IOException {
+    if ("binary".equals(format)) {
+      binary.save(state, path);
+    } else {
+      json.save(state, path);
+    }
+  }
+}
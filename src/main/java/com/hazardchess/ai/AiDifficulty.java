@@ -3,5 +3,6 @@ package com.hazardchess.ai;
 public enum AiDifficulty {
   EASY,
   NORMAL,
-  HARD
+  HARD,
+  EXPERT
 }
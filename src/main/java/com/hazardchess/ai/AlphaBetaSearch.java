@@ -0,0 +1,452 @@
+package com.hazardchess.ai;
+
+import com.hazardchess.model.Board;
+import com.hazardchess.model.ChessEngine;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Minefield;
+import com.hazardchess.model.Move;
+import com.hazardchess.model.MoveUndo;
+import com.hazardchess.model.Piece;
+import com.hazardchess.model.PieceType;
+import com.hazardchess.model.PlayerColor;
+import com.hazardchess.model.PlayerView;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+public final class AlphaBetaSearch {
+  public static final int MAX_DEPTH = 64;
+  public static final int DEFAULT_HASH_MEGABYTES = 16;
+  private static final int CHECK_INTERVAL = 1023;
+  private static final int QUIESCENCE_DEPTH = 6;
+  private static final double CERTAIN = 1e-9;
+  private static final int CHANCE_PLIES = 2;
+
+  private final TranspositionTable table;
+  private final MineSolver solver;
+  private int threads = 1;
+  private int maxDepth = MAX_DEPTH;
+  private ExecutorService helpers;
+  private volatile long nodes;
+  private volatile int completedDepth;
+
+  public AlphaBetaSearch() {
+    this(DEFAULT_HASH_MEGABYTES);
+  }
+
+  public AlphaBetaSearch(int hashMegabytes) {
+    this(hashMegabytes, new MineSolver());
+  }
+
+  AlphaBetaSearch(int hashMegabytes, MineSolver solver) {
+    this.table = new TranspositionTable(hashMegabytes);
+    this.solver = solver;
+  }
+
+  public int getHashMegabytes() {
+    return table.sizeMegabytes();
+  }
+
+  public synchronized void clearHash() {
+    table.clear();
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public synchronized void setThreads(int threads) {
+    int count = Math.max(1, threads);
+    if (count == this.threads) {
+      return;
+    }
+    if (helpers != null) {
+      helpers.shutdownNow();
+      helpers = null;
+    }
+    this.threads = count;
+  }
+
+  public synchronized void close() {
+    if (helpers != null) {
+      helpers.shutdownNow();
+      helpers = null;
+    }
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public synchronized void setMaxDepth(int maxDepth) {
+    this.maxDepth = Math.max(1, Math.min(MAX_DEPTH, maxDepth));
+  }
+
+  public long getNodes() {
+    return nodes;
+  }
+
+  public int getCompletedDepth() {
+    return completedDepth;
+  }
+
+  public Move search(GameState state, long budgetMillis, BooleanSupplier cancelled) {
+    return search(PlayerView.of(state, state.getToMove()), budgetMillis, cancelled);
+  }
+
+  public synchronized Move search(PlayerView view, long budgetMillis, BooleanSupplier cancelled) {
+    BooleanSupplier externalCancel = cancelled == null ? () -> false : cancelled;
+    long deadline = System.currentTimeMillis() + Math.max(1, budgetMillis);
+    double[] mineRisk = solver.solve(view);
+    table.newSearch();
+
+    Worker main = new Worker(view.withoutHiddenMines(), 0, deadline, externalCancel, mineRisk);
+    if (main.rootMoves.isEmpty()) {
+      nodes = 0;
+      completedDepth = 0;
+      return null;
+    }
+    List<Worker> workers = new ArrayList<>();
+    workers.add(main);
+    List<Future<?>> running = new ArrayList<>();
+    if (threads > 1 && main.rootMoves.size() > 1) {
+      if (helpers == null) {
+        helpers = Executors.newFixedThreadPool(threads - 1, runnable -> {
+          Thread thread = new Thread(runnable, "hazard-search-helper");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      BooleanSupplier helperCancel = () -> main.finished || externalCancel.getAsBoolean();
+      for (int id = 1; id < threads; id++) {
+        Worker helper = new Worker(view.withoutHiddenMines(), id, deadline, helperCancel, mineRisk);
+        workers.add(helper);
+        running.add(helpers.submit(helper::run));
+      }
+    }
+
+    main.run();
+    for (Future<?> future : running) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Search helper failed", e.getCause());
+      }
+    }
+
+    Worker best = main;
+    long total = 0;
+    for (Worker worker : workers) {
+      total += worker.nodes;
+      if (worker.completedDepth > best.completedDepth && worker.best != null) {
+        best = worker;
+      }
+    }
+    nodes = total;
+    completedDepth = best.completedDepth;
+    return best.best != null ? best.best : main.rootMoves.get(0);
+  }
+
+  private final class Worker {
+    private final ChessEngine engine = new ChessEngine();
+    private final GameState position;
+    private final int id;
+    private final long deadline;
+    private final BooleanSupplier cancelled;
+    private final double[] mineRisk;
+    private final List<Move> rootMoves;
+    private long nodes;
+    private boolean aborted;
+    private Move best;
+    private int completedDepth;
+    private volatile boolean finished;
+
+    private Worker(GameState position, int id, long deadline, BooleanSupplier cancelled, double[] mineRisk) {
+      this.position = position;
+      this.id = id;
+      this.deadline = deadline;
+      this.cancelled = cancelled;
+      this.mineRisk = mineRisk;
+      this.rootMoves = engine.legalMoves(position);
+      if (id > 0 && rootMoves.size() > 1) {
+        Collections.rotate(rootMoves, id % rootMoves.size());
+      }
+    }
+
+    private void run() {
+      try {
+        for (int depth = 1 + (id & 1); depth <= maxDepth && !aborted; depth++) {
+          Move iterationBest = searchRoot(depth);
+          if (aborted) {
+            break;
+          }
+          best = iterationBest;
+          completedDepth = depth;
+          rootMoves.remove(best);
+          rootMoves.add(0, best);
+          if (System.currentTimeMillis() >= deadline) {
+            break;
+          }
+        }
+      } finally {
+        finished = true;
+      }
+    }
+
+    private Move searchRoot(int depth) {
+      int alpha = -Evaluator.MATE - 1;
+      int beta = Evaluator.MATE + 1;
+      Move bestMove = rootMoves.get(0);
+      for (Move move : rootMoves) {
+        int score = searchMove(move, depth, 0, alpha, beta, false);
+        if (aborted) {
+          break;
+        }
+        if (score > alpha) {
+          alpha = score;
+          bestMove = move;
+        }
+      }
+      return bestMove;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+      if (checkAbort()) {
+        return 0;
+      }
+      PlayerColor toMove = position.getToMove();
+      if (missingKing()) {
+        return kingLossScore(ply);
+      }
+      if (position.isThreefoldRepetition() || position.isFiftyMoveDraw()) {
+        return 0;
+      }
+      if (depth <= 0) {
+        return quiescence(ply, alpha, beta, QUIESCENCE_DEPTH);
+      }
+      long key = position.getPositionKey();
+      long entry = table.probe(key);
+      int hashMove = TranspositionTable.NO_MOVE;
+      if (entry != 0) {
+        hashMove = TranspositionTable.move(entry);
+        if (TranspositionTable.depth(entry) >= depth) {
+          int stored = fromTable(TranspositionTable.score(entry), ply);
+          int bound = TranspositionTable.bound(entry);
+          if (bound == TranspositionTable.BOUND_EXACT
+              || (bound == TranspositionTable.BOUND_LOWER && stored >= beta)
+              || (bound == TranspositionTable.BOUND_UPPER && stored <= alpha)) {
+            return stored;
+          }
+        }
+      }
+      List<Move> moves = engine.legalMoves(position);
+      if (moves.isEmpty()) {
+        return engine.isInCheck(position, toMove) ? -Evaluator.MATE + ply : 0;
+      }
+      orderMoves(moves, hashMove);
+      int originalAlpha = alpha;
+      int bestScore = Integer.MIN_VALUE;
+      Move bestMove = null;
+      for (Move move : moves) {
+        int score = searchMove(move, depth, ply, alpha, beta, false);
+        if (aborted) {
+          return 0;
+        }
+        if (score > bestScore) {
+          bestScore = score;
+          bestMove = move;
+        }
+        if (score > alpha) {
+          alpha = score;
+        }
+        if (alpha >= beta) {
+          break;
+        }
+      }
+      int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+          : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+      table.store(key, depth, bound, toTable(bestScore, ply), bestMove.encode());
+      return bestScore;
+    }
+
+    private int quiescence(int ply, int alpha, int beta, int depth) {
+      if (checkAbort()) {
+        return 0;
+      }
+      if (missingKing()) {
+        return kingLossScore(ply);
+      }
+      int standPat = Evaluator.evaluate(position);
+      if (standPat >= beta || depth == 0) {
+        return standPat;
+      }
+      if (standPat > alpha) {
+        alpha = standPat;
+      }
+      List<Move> captures = new ArrayList<>();
+      for (Move move : engine.legalMoves(position)) {
+        if (isCapture(move)) {
+          captures.add(move);
+        }
+      }
+      orderMoves(captures, TranspositionTable.NO_MOVE);
+      for (Move move : captures) {
+        int score = searchMove(move, depth, ply, alpha, beta, true);
+        if (aborted) {
+          return 0;
+        }
+        if (score >= beta) {
+          return score;
+        }
+        if (score > alpha) {
+          alpha = score;
+        }
+      }
+      return alpha;
+    }
+
+    private boolean missingKing() {
+      Board board = position.getBoard();
+      return board.getBitboard(PlayerColor.WHITE, PieceType.KING) == 0
+          || board.getBitboard(PlayerColor.BLACK, PieceType.KING) == 0;
+    }
+
+    private int kingLossScore(int ply) {
+      boolean ownKingAlive = position.getBoard().getBitboard(position.getToMove(), PieceType.KING) != 0;
+      return ownKingAlive ? Evaluator.MATE - ply : -Evaluator.MATE + ply;
+    }
+
+    private boolean checkAbort() {
+      if (aborted) {
+        return true;
+      }
+      if ((++nodes & CHECK_INTERVAL) == 0
+          && (System.currentTimeMillis() >= deadline || cancelled.getAsBoolean())) {
+        aborted = true;
+      }
+      return aborted;
+    }
+
+    private int searchMove(Move move, int depth, int ply, int alpha, int beta, boolean quiet) {
+      double risk = chanceRisk(move);
+      if (risk <= CERTAIN) {
+        return playOutcome(move, false, depth, ply, alpha, beta, quiet);
+      }
+      if (risk >= 1 - CERTAIN) {
+        return playOutcome(move, true, depth, ply, alpha, beta, quiet);
+      }
+      if (quiet || ply >= CHANCE_PLIES) {
+        Piece moving = position.getBoard().getPiece(move.getFrom().getRow(), move.getFrom().getCol());
+        int loss = (int) Math.round(risk * Evaluator.pieceValue(moving.getType()));
+        return playOutcome(move, false, depth, ply, alpha + loss, beta + loss, quiet) - loss;
+      }
+      // Star1: search the likelier outcome first with a window that already
+      // assumes the best or worst case for the other one.
+      boolean mineFirst = risk >= 0.5;
+      double first = mineFirst ? risk : 1 - risk;
+      double second = 1 - first;
+      int low = window(Math.floor((alpha - second * Evaluator.MATE) / first));
+      int high = window(Math.ceil((beta + second * Evaluator.MATE) / first));
+      int firstScore = playOutcome(move, mineFirst, depth, ply, low, high, quiet);
+      if (aborted) {
+        return 0;
+      }
+      if (firstScore <= low) {
+        return (int) Math.floor(first * firstScore + second * Evaluator.MATE);
+      }
+      if (firstScore >= high) {
+        return (int) Math.ceil(first * firstScore - second * Evaluator.MATE);
+      }
+      low = window(Math.floor((alpha - first * firstScore) / second));
+      high = window(Math.ceil((beta - first * firstScore) / second));
+      int secondScore = playOutcome(move, !mineFirst, depth, ply, low, high, quiet);
+      return (int) Math.round(first * firstScore + second * secondScore);
+    }
+
+    private int playOutcome(Move move, boolean mine, int depth, int ply, int alpha, int beta, boolean quiet) {
+      Minefield minefield = position.getMinefield();
+      int row = move.getTo().getRow();
+      int col = move.getTo().getCol();
+      boolean placed = mine && !minefield.hasMine(row, col);
+      if (placed) {
+        minefield.setMine(row, col, true);
+      }
+      MoveUndo undo = position.makeMove(move);
+      int score = quiet
+          ? -quiescence(ply + 1, -beta, -alpha, depth - 1)
+          : -negamax(depth - 1, ply + 1, -beta, -alpha);
+      position.unmakeMove(undo);
+      if (placed) {
+        minefield.setMine(row, col, false);
+      }
+      return score;
+    }
+
+    private double chanceRisk(Move move) {
+      int row = move.getTo().getRow();
+      int col = move.getTo().getCol();
+      Minefield minefield = position.getMinefield();
+      if (minefield.isRevealed(row, col) || minefield.hasMine(row, col)) {
+        return 0;
+      }
+      return mineRisk[Board.index(row, col)];
+    }
+
+    private void orderMoves(List<Move> moves, int hashMove) {
+      moves.sort((a, b) -> Integer.compare(orderScore(b, hashMove), orderScore(a, hashMove)));
+    }
+
+    private int orderScore(Move move, int hashMove) {
+      if (hashMove != TranspositionTable.NO_MOVE && move.encode() == hashMove) {
+        return Integer.MAX_VALUE;
+      }
+      Board board = position.getBoard();
+      Piece target = board.getPiece(move.getTo().getRow(), move.getTo().getCol());
+      Piece moving = board.getPiece(move.getFrom().getRow(), move.getFrom().getCol());
+      int score = 0;
+      if (target != null) {
+        score += 10 * Evaluator.pieceValue(target.getType()) - Evaluator.pieceValue(moving.getType()) / 10;
+      }
+      if (move.isPromotion()) {
+        score += Evaluator.pieceValue(move.getPromotion());
+      }
+      return score;
+    }
+
+    private boolean isCapture(Move move) {
+      return move.isEnPassant() || move.isPromotion()
+          || !position.getBoard().isEmpty(move.getTo().getRow(), move.getTo().getCol());
+    }
+  }
+
+  private static int window(double bound) {
+    return (int) Math.max(-Evaluator.MATE - 1, Math.min(Evaluator.MATE + 1, bound));
+  }
+
+  private static int toTable(int score, int ply) {
+    if (score > Evaluator.MATE_THRESHOLD) {
+      return score + ply;
+    }
+    if (score < -Evaluator.MATE_THRESHOLD) {
+      return score - ply;
+    }
+    return score;
+  }
+
+  private static int fromTable(int score, int ply) {
+    if (score > Evaluator.MATE_THRESHOLD) {
+      return score - ply;
+    }
+    if (score < -Evaluator.MATE_THRESHOLD) {
+      return score + ply;
+    }
+    return score;
+  }
+}
@@ -0,0 +1,80 @@
+package com.hazardchess.ai;
+
+import com.hazardchess.model.Board;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Minefield;
+import com.hazardchess.model.PieceType;
+import com.hazardchess.model.PlayerColor;
+
+final class Evaluator {
+  static final int MATE = 30000;
+  static final int MATE_THRESHOLD = MATE - 1000;
+
+  private static final long CENTER = 0x0000001818000000L;
+  private static final long EXTENDED_CENTER = 0x00003C3C3C3C0000L;
+
+  private Evaluator() {
+  }
+
+  static int pieceValue(PieceType type) {
+    return switch (type) {
+      case PAWN -> 100;
+      case KNIGHT -> 320;
+      case BISHOP -> 330;
+      case ROOK -> 500;
+      case QUEEN -> 900;
+      case KING -> 2000;
+    };
+  }
+
+  static int evaluate(GameState state) {
+    int score = side(state, PlayerColor.WHITE) - side(state, PlayerColor.BLACK);
+    return state.getToMove() == PlayerColor.WHITE ? score : -score;
+  }
+
+  private static int side(GameState state, PlayerColor color) {
+    Board board = state.getBoard();
+    int score = 0;
+    for (PieceType type : PieceType.values()) {
+      if (type == PieceType.KING) {
+        continue;
+      }
+      long pieces = board.getBitboard(color, type);
+      score += Long.bitCount(pieces) * pieceValue(type);
+      if (type == PieceType.KNIGHT || type == PieceType.BISHOP) {
+        score += 10 * Long.bitCount(pieces & EXTENDED_CENTER) + 10 * Long.bitCount(pieces & CENTER);
+      } else if (type == PieceType.PAWN) {
+        score += 15 * Long.bitCount(pieces & CENTER) + pawnAdvance(pieces, color);
+      }
+    }
+    score -= doomed(state, board.getOccupancy(color));
+    return score;
+  }
+
+  private static int pawnAdvance(long pawns, PlayerColor color) {
+    int bonus = 0;
+    while (pawns != 0) {
+      int square = Long.numberOfTrailingZeros(pawns);
+      pawns &= pawns - 1;
+      int row = Board.rowOf(square);
+      bonus += 4 * (color == PlayerColor.WHITE ? 6 - row : row - 1);
+    }
+    return bonus;
+  }
+
+  private static int doomed(GameState state, long pieces) {
+    Minefield minefield = state.getMinefield();
+    Board board = state.getBoard();
+    int lost = 0;
+    while (pieces != 0) {
+      int square = Long.numberOfTrailingZeros(pieces);
+      pieces &= pieces - 1;
+      int row = Board.rowOf(square);
+      int col = Board.colOf(square);
+      if (minefield.isArmed(row, col)) {
+        lost += pieceValue(board.getPiece(row, col).getType());
+      }
+    }
+    return lost;
+  }
+}
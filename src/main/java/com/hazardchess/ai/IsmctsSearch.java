@@ -0,0 +1,327 @@
+package com.hazardchess.ai;
+
+import com.hazardchess.model.Board;
+import com.hazardchess.model.ChessEngine;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Minefield;
+import com.hazardchess.model.Move;
+import com.hazardchess.model.MoveUndo;
+import com.hazardchess.model.Piece;
+import com.hazardchess.model.PieceType;
+import com.hazardchess.model.PlayerColor;
+import com.hazardchess.model.PlayerView;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+public final class IsmctsSearch {
+  public static final int DEFAULT_VISITS = 20_000;
+  private static final int LAYOUT_POOL = 256;
+  private static final int PLAYOUT_PLIES = 24;
+  private static final double EXPLORATION = 0.7;
+  private static final double EVAL_SCALE = 400;
+  private static final int CHECK_INTERVAL = 63;
+
+  private final MineSolver solver;
+  private int threads = 1;
+  private ExecutorService helpers;
+  private volatile long iterations;
+
+  public IsmctsSearch() {
+    this(new MineSolver());
+  }
+
+  IsmctsSearch(MineSolver solver) {
+    this.solver = solver;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public synchronized void setThreads(int threads) {
+    int count = Math.max(1, threads);
+    if (count == this.threads) {
+      return;
+    }
+    if (helpers != null) {
+      helpers.shutdownNow();
+      helpers = null;
+    }
+    this.threads = count;
+  }
+
+  public synchronized void close() {
+    if (helpers != null) {
+      helpers.shutdownNow();
+      helpers = null;
+    }
+  }
+
+  public long getIterations() {
+    return iterations;
+  }
+
+  public Move search(GameState state, int visits, long budgetMillis, BooleanSupplier cancelled) {
+    return search(PlayerView.of(state, state.getToMove()), visits, budgetMillis, cancelled);
+  }
+
+  public synchronized Move search(PlayerView view, int visits, long budgetMillis, BooleanSupplier cancelled) {
+    BooleanSupplier externalCancel = cancelled == null ? () -> false : cancelled;
+    long deadline = System.currentTimeMillis() + Math.max(1, budgetMillis);
+    List<Move> rootMoves = new ChessEngine().legalMoves(view.withoutHiddenMines());
+    iterations = 0;
+    if (rootMoves.size() <= 1) {
+      return rootMoves.isEmpty() ? null : rootMoves.get(0);
+    }
+
+    Random random = new Random();
+    long[] layouts = new long[LAYOUT_POOL];
+    for (int i = 0; i < layouts.length; i++) {
+      layouts[i] = solver.sample(view, random);
+    }
+    int quota = Math.max(1, (visits + threads - 1) / threads);
+    List<Worker> workers = new ArrayList<>();
+    for (int id = 0; id < threads; id++) {
+      long layout = layouts[random.nextInt(layouts.length)];
+      workers.add(new Worker(view.determinize(layout), layouts, random.nextLong(), quota, deadline,
+          externalCancel));
+    }
+    List<Future<?>> running = new ArrayList<>();
+    if (threads > 1) {
+      if (helpers == null) {
+        helpers = Executors.newFixedThreadPool(threads - 1, runnable -> {
+          Thread thread = new Thread(runnable, "hazard-ismcts-helper");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      for (Worker worker : workers.subList(1, workers.size())) {
+        running.add(helpers.submit(worker::run));
+      }
+    }
+    workers.get(0).run();
+    for (Future<?> future : running) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("ISMCTS helper failed", e.getCause());
+      }
+    }
+
+    Map<Integer, Integer> visitsByMove = new HashMap<>();
+    long total = 0;
+    for (Worker worker : workers) {
+      total += worker.iterations;
+      for (Node child : worker.root.children) {
+        visitsByMove.merge(child.move, child.visits, Integer::sum);
+      }
+    }
+    iterations = total;
+    Move best = rootMoves.get(0);
+    int bestVisits = -1;
+    for (Move move : rootMoves) {
+      int count = visitsByMove.getOrDefault(move.encode(), 0);
+      if (count > bestVisits) {
+        bestVisits = count;
+        best = move;
+      }
+    }
+    return best;
+  }
+
+  private static final class Node {
+    private final Node parent;
+    private final int move;
+    private final PlayerColor mover;
+    private final List<Node> children = new ArrayList<>();
+    private int visits;
+    private int availability;
+    private double reward;
+
+    private Node(Node parent, int move, PlayerColor mover) {
+      this.parent = parent;
+      this.move = move;
+      this.mover = mover;
+    }
+
+    private Node child(int encoded) {
+      for (Node child : children) {
+        if (child.move == encoded) {
+          return child;
+        }
+      }
+      return null;
+    }
+  }
+
+  private static final class Worker {
+    private final ChessEngine engine = new ChessEngine();
+    private final GameState position;
+    private final long[] layouts;
+    private final SplittableRandom random;
+    private final int quota;
+    private final long deadline;
+    private final BooleanSupplier cancelled;
+    private final Node root = new Node(null, TranspositionTable.NO_MOVE, null);
+    private final List<MoveUndo> played = new ArrayList<>();
+    private long mines;
+    private int iterations;
+
+    private Worker(GameState position, long[] layouts, long seed, int quota, long deadline,
+                   BooleanSupplier cancelled) {
+      this.position = position;
+      this.layouts = layouts;
+      this.random = new SplittableRandom(seed);
+      this.quota = quota;
+      this.deadline = deadline;
+      this.cancelled = cancelled;
+      this.mines = position.getMinefield().getMineMask();
+    }
+
+    private void run() {
+      while (iterations < quota) {
+        if ((iterations & CHECK_INTERVAL) == 0 && iterations > 0
+            && (System.currentTimeMillis() >= deadline || cancelled.getAsBoolean())) {
+          break;
+        }
+        iterate();
+        iterations++;
+      }
+    }
+
+    private void iterate() {
+      determinize(layouts[random.nextInt(layouts.length)]);
+      Node node = root;
+      while (!isTerminal()) {
+        List<Move> legal = engine.legalMoves(position);
+        if (legal.isEmpty()) {
+          break;
+        }
+        List<Move> untried = new ArrayList<>();
+        Node selected = null;
+        Move selectedMove = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Move move : legal) {
+          Node child = node.child(move.encode());
+          if (child == null) {
+            untried.add(move);
+            continue;
+          }
+          child.availability++;
+          double score = child.reward / child.visits
+              + EXPLORATION * Math.sqrt(Math.log(child.availability) / child.visits);
+          if (score > bestScore) {
+            bestScore = score;
+            selected = child;
+            selectedMove = move;
+          }
+        }
+        if (!untried.isEmpty()) {
+          Move move = untried.get(random.nextInt(untried.size()));
+          Node child = new Node(node, move.encode(), position.getToMove());
+          child.availability = 1;
+          node.children.add(child);
+          play(move);
+          node = child;
+          break;
+        }
+        play(selectedMove);
+        node = selected;
+      }
+      double whiteReward = playout();
+      for (; node != null; node = node.parent) {
+        node.visits++;
+        if (node.mover != null) {
+          node.reward += node.mover == PlayerColor.WHITE ? whiteReward : 1 - whiteReward;
+        }
+      }
+      for (int i = played.size() - 1; i >= 0; i--) {
+        position.unmakeMove(played.get(i));
+      }
+      played.clear();
+    }
+
+    private double playout() {
+      for (int ply = 0; ply < PLAYOUT_PLIES && !isTerminal(); ply++) {
+        List<Move> legal = engine.legalMoves(position);
+        if (legal.isEmpty()) {
+          break;
+        }
+        play(pickPlayoutMove(legal));
+      }
+      return whiteReward();
+    }
+
+    private Move pickPlayoutMove(List<Move> legal) {
+      if (random.nextBoolean()) {
+        Board board = position.getBoard();
+        Move best = null;
+        int bestValue = 0;
+        for (Move move : legal) {
+          Piece target = board.getPiece(move.getTo().getRow(), move.getTo().getCol());
+          if (target != null && Evaluator.pieceValue(target.getType()) > bestValue) {
+            bestValue = Evaluator.pieceValue(target.getType());
+            best = move;
+          }
+        }
+        if (best != null) {
+          return best;
+        }
+      }
+      return legal.get(random.nextInt(legal.size()));
+    }
+
+    private double whiteReward() {
+      Board board = position.getBoard();
+      boolean whiteKing = board.getBitboard(PlayerColor.WHITE, PieceType.KING) != 0;
+      boolean blackKing = board.getBitboard(PlayerColor.BLACK, PieceType.KING) != 0;
+      if (!whiteKing || !blackKing) {
+        return whiteKing ? 1 : blackKing ? 0 : 0.5;
+      }
+      if (position.isThreefoldRepetition() || position.isFiftyMoveDraw()) {
+        return 0.5;
+      }
+      PlayerColor toMove = position.getToMove();
+      if (engine.legalMoves(position).isEmpty()) {
+        if (!engine.isInCheck(position, toMove)) {
+          return 0.5;
+        }
+        return toMove == PlayerColor.WHITE ? 0 : 1;
+      }
+      int score = Evaluator.evaluate(position);
+      int whiteScore = toMove == PlayerColor.WHITE ? score : -score;
+      return 1 / (1 + Math.exp(-whiteScore / EVAL_SCALE));
+    }
+
+    private boolean isTerminal() {
+      Board board = position.getBoard();
+      return board.getBitboard(PlayerColor.WHITE, PieceType.KING) == 0
+          || board.getBitboard(PlayerColor.BLACK, PieceType.KING) == 0
+          || position.isThreefoldRepetition() || position.isFiftyMoveDraw();
+    }
+
+    private void play(Move move) {
+      played.add(position.makeMove(move));
+    }
+
+    private void determinize(long layout) {
+      Minefield minefield = position.getMinefield();
+      for (long changed = mines ^ layout; changed != 0; changed &= changed - 1) {
+        int square = Long.numberOfTrailingZeros(changed);
+        minefield.setMine(Board.rowOf(square), Board.colOf(square), (layout & (1L << square)) != 0);
+      }
+      mines = layout;
+    }
+  }
+}
@@ -0,0 +1,620 @@
+package com.hazardchess.ai;
+
+import com.hazardchess.model.Attacks;
+import com.hazardchess.model.Board;
+import com.hazardchess.model.PlayerView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public final class MineSolver {
+  public static final long DEFAULT_NODE_LIMIT = 200_000;
+  private static final int COMPONENT_CACHE_SIZE = 256;
+  private static final int SAMPLE_ATTEMPTS = 32;
+  private static final long SAMPLE_NODE_LIMIT = 20_000;
+  private static final int STORED_LAYOUTS = 1024;
+
+  private static final double[][] BINOMIAL = new double[Board.SQUARES + 1][Board.SQUARES + 1];
+
+  static {
+    for (int n = 0; n <= Board.SQUARES; n++) {
+      BINOMIAL[n][0] = 1;
+      for (int k = 1; k <= n; k++) {
+        BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+      }
+    }
+  }
+
+  private final long nodeLimit;
+  private long cachedRevealed = -1;
+  private long cachedExploded;
+  private long cachedArmed;
+  private int cachedTotal;
+  private byte[] cachedClues;
+  private double[] cachedResult;
+  private final Map<ComponentKey, Component> componentCache = new LinkedHashMap<>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<ComponentKey, Component> eldest) {
+      return size() > COMPONENT_CACHE_SIZE;
+    }
+  };
+  private long componentHits;
+  private long componentMisses;
+
+  public MineSolver() {
+    this(DEFAULT_NODE_LIMIT);
+  }
+
+  public MineSolver(long nodeLimit) {
+    this.nodeLimit = Math.max(1, nodeLimit);
+  }
+
+  public double[][] probabilityGrid(PlayerView view) {
+    double[] probabilities = solve(view);
+    double[][] grid = new double[Board.SIZE][Board.SIZE];
+    for (int square = 0; square < Board.SQUARES; square++) {
+      grid[Board.rowOf(square)][Board.colOf(square)] = probabilities[square];
+    }
+    return grid;
+  }
+
+  public synchronized long getComponentHits() {
+    return componentHits;
+  }
+
+  public synchronized long getComponentMisses() {
+    return componentMisses;
+  }
+
+  public synchronized double[] solve(PlayerView view) {
+    long revealed = view.getRevealedMask();
+    long exploded = view.getExplodedMask();
+    long armed = view.getArmedMask();
+    int total = view.getMineCount();
+    byte[] clues = clues(view, revealed);
+    if (cachedResult == null || revealed != cachedRevealed || exploded != cachedExploded
+        || armed != cachedArmed || total != cachedTotal || !Arrays.equals(clues, cachedClues)) {
+      cachedResult = compute(view, revealed, exploded, armed, total);
+      cachedRevealed = revealed;
+      cachedExploded = exploded;
+      cachedArmed = armed;
+      cachedTotal = total;
+      cachedClues = clues;
+    }
+    return cachedResult.clone();
+  }
+
+  public synchronized long sample(PlayerView view, Random random) {
+    long revealed = view.getRevealedMask();
+    long knownMines = view.getKnownMineMask();
+    int remaining = view.getHiddenMineCount();
+    List<Constraint> constraints = new ArrayList<>();
+    long frontier = constraints(view, revealed, knownMines, constraints);
+    long interior = view.getUnknownMask() & ~frontier;
+    List<Component> components = new ArrayList<>();
+    List<Component> unsolved = new ArrayList<>();
+    for (long mask : split(frontier, constraints)) {
+      Component component = solved(mask, constraints);
+      (component.complete ? components : unsolved).add(component);
+    }
+    double[] marginals = unsolved.isEmpty() ? null : solve(view);
+    int[] interiorSquares = squares(interior);
+
+    // Completions of the frontier beyond component i, by mine count.
+    double[][] rest = new double[components.size() + 1][];
+    rest[components.size()] = new double[] {1};
+    for (int i = components.size() - 1; i >= 0; i--) {
+      rest[i] = convolve(components.get(i).weights, rest[i + 1]);
+    }
+
+    for (int attempt = 0; attempt < SAMPLE_ATTEMPTS; attempt++) {
+      // Components too large to enumerate get any layout that fits their
+      // clues; the rest of the board is then drawn exactly around them.
+      long layout = knownMines;
+      int left = remaining;
+      boolean drawn = true;
+      for (Component component : unsolved) {
+        if (!component.draw(random, marginals, SAMPLE_NODE_LIMIT)) {
+          drawn = false;
+          break;
+        }
+        long part = component.layout();
+        layout |= part;
+        left -= Long.bitCount(part);
+      }
+      if (!drawn) {
+        continue;
+      }
+
+      // Each frontier total k is worth its clue-consistent layouts times
+      // the C(interior, left - k) ways to place the remaining mines.
+      double[] totals = new double[rest[0].length];
+      for (int k = 0; k < totals.length; k++) {
+        totals[k] = rest[0][k] * choose(interiorSquares.length, left - k);
+      }
+      int mines = weighted(totals, random);
+      if (mines < 0) {
+        if (unsolved.isEmpty()) {
+          break;
+        }
+        continue;
+      }
+      left -= mines;
+      for (int i = 0; i < components.size(); i++) {
+        Component component = components.get(i);
+        double[] share = new double[Math.min(mines, component.weights.length - 1) + 1];
+        for (int k = 0; k < share.length; k++) {
+          share[k] = mines - k < rest[i + 1].length ? component.weights[k] * rest[i + 1][mines - k] : 0;
+        }
+        int own = weighted(share, random);
+        layout |= component.layout(own, random);
+        mines -= own;
+      }
+      return layout | pick(interiorSquares, left, random);
+    }
+    throw new IllegalStateException("No mine layout fits the clues in view");
+  }
+
+  private static int weighted(double[] weights, Random random) {
+    double total = 0;
+    for (double weight : weights) {
+      total += weight;
+    }
+    if (total <= 0) {
+      return -1;
+    }
+    double target = random.nextDouble() * total;
+    int last = -1;
+    for (int i = 0; i < weights.length; i++) {
+      if (weights[i] > 0) {
+        last = i;
+        target -= weights[i];
+        if (target < 0) {
+          return i;
+        }
+      }
+    }
+    return last;
+  }
+
+  private static byte[] clues(PlayerView view, long revealed) {
+    byte[] clues = new byte[Long.bitCount(revealed)];
+    int i = 0;
+    for (long pending = revealed; pending != 0; pending &= pending - 1) {
+      clues[i++] = (byte) view.getClue(Long.numberOfTrailingZeros(pending));
+    }
+    return clues;
+  }
+
+  private double[] compute(PlayerView view, long revealed, long exploded, long armed, int total) {
+    double[] result = new double[Board.SQUARES];
+    long knownMines = exploded | armed;
+    long unknown = ~(revealed | knownMines);
+    int remaining = total - Long.bitCount(knownMines);
+    List<Constraint> constraints = new ArrayList<>();
+    long frontier = constraints(view, revealed, knownMines, constraints);
+
+    List<Component> components = new ArrayList<>();
+    long interior = unknown & ~frontier;
+    for (long mask : split(frontier, constraints)) {
+      Component component = solved(mask, constraints);
+      if (component.complete) {
+        components.add(component);
+      } else {
+        interior |= mask;
+      }
+    }
+
+    int interiorCount = Long.bitCount(interior);
+    double[] all = new double[] {1};
+    for (Component component : components) {
+      all = convolve(all, component.weights);
+    }
+    double totalWeight = 0;
+    double interiorMines = 0;
+    for (int k = 0; k < all.length; k++) {
+      double weight = all[k] * choose(interiorCount, remaining - k);
+      totalWeight += weight;
+      interiorMines += weight * (remaining - k);
+    }
+    if (totalWeight <= 0) {
+      double density = Long.bitCount(unknown) == 0 ? 0 : Math.max(0, remaining) / (double) Long.bitCount(unknown);
+      fill(result, unknown, Math.min(1, density));
+      fill(result, armed, 1);
+      return result;
+    }
+    if (interiorCount > 0) {
+      fill(result, interior, interiorMines / totalWeight / interiorCount);
+    }
+
+    for (int index = 0; index < components.size(); index++) {
+      Component component = components.get(index);
+      double[] others = new double[] {1};
+      for (int other = 0; other < components.size(); other++) {
+        if (other != index) {
+          others = convolve(others, components.get(other).weights);
+        }
+      }
+      double[] outside = new double[component.weights.length];
+      for (int k = 0; k < outside.length; k++) {
+        for (int j = 0; j < others.length; j++) {
+          outside[k] += others[j] * choose(interiorCount, remaining - k - j);
+        }
+      }
+      for (int cell = 0; cell < component.squares.length; cell++) {
+        double mineWeight = 0;
+        for (int k = 0; k < outside.length; k++) {
+          mineWeight += component.cellWeights[k][cell] * outside[k];
+        }
+        result[component.squares[cell]] = mineWeight / totalWeight;
+      }
+    }
+    fill(result, armed, 1);
+    return result;
+  }
+
+  private static long constraints(PlayerView view, long revealed, long knownMines, List<Constraint> out) {
+    long unknown = ~(revealed | knownMines);
+    long frontier = 0L;
+    for (long pending = revealed & ~view.getExplodedMask(); pending != 0; pending &= pending - 1) {
+      int square = Long.numberOfTrailingZeros(pending);
+      long around = Attacks.king(square);
+      long cells = around & unknown;
+      if (cells == 0) {
+        continue;
+      }
+      int mines = view.getClue(square) - Long.bitCount(around & knownMines);
+      out.add(new Constraint(cells, mines));
+      frontier |= cells;
+    }
+    return frontier;
+  }
+
+  private static int[] squares(long mask) {
+    int[] squares = new int[Long.bitCount(mask)];
+    int count = 0;
+    for (; mask != 0; mask &= mask - 1) {
+      squares[count++] = Long.numberOfTrailingZeros(mask);
+    }
+    return squares;
+  }
+
+  private static long pick(int[] squares, int count, Random random) {
+    int[] pool = squares.clone();
+    long picked = 0L;
+    for (int i = 0; i < count && i < pool.length; i++) {
+      int j = i + random.nextInt(pool.length - i);
+      int chosen = pool[j];
+      pool[j] = pool[i];
+      pool[i] = chosen;
+      picked |= 1L << chosen;
+    }
+    return picked;
+  }
+
+  private Component solved(long mask, List<Constraint> constraints) {
+    List<Constraint> local = new ArrayList<>();
+    for (Constraint constraint : constraints) {
+      if ((constraint.cells & mask) != 0) {
+        local.add(constraint);
+      }
+    }
+    ComponentKey key = new ComponentKey(mask, local);
+    Component component = componentCache.get(key);
+    if (component != null) {
+      componentHits++;
+      return component;
+    }
+    componentMisses++;
+    component = new Component(mask, local);
+    component.complete = component.enumerate(nodeLimit);
+    componentCache.put(key, component);
+    return component;
+  }
+
+  private static List<Long> split(long frontier, List<Constraint> constraints) {
+    List<Long> components = new ArrayList<>();
+    long left = frontier;
+    while (left != 0) {
+      long component = left & -left;
+      long grown;
+      do {
+        grown = component;
+        for (Constraint constraint : constraints) {
+          if ((constraint.cells & component) != 0) {
+            component |= constraint.cells;
+          }
+        }
+      } while (grown != component);
+      components.add(component);
+      left &= ~component;
+    }
+    return components;
+  }
+
+  private static double[] convolve(double[] a, double[] b) {
+    double[] result = new double[a.length + b.length - 1];
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] == 0) {
+        continue;
+      }
+      for (int j = 0; j < b.length; j++) {
+        result[i + j] += a[i] * b[j];
+      }
+    }
+    return result;
+  }
+
+  private static double choose(int n, int k) {
+    if (k < 0 || n < 0 || k > n) {
+      return 0;
+    }
+    return BINOMIAL[n][k];
+  }
+
+  private static void fill(double[] result, long mask, double value) {
+    for (; mask != 0; mask &= mask - 1) {
+      result[Long.numberOfTrailingZeros(mask)] = value;
+    }
+  }
+
+  private static final class Constraint {
+    private final long cells;
+    private final int mines;
+
+    private Constraint(long cells, int mines) {
+      this.cells = cells;
+      this.mines = mines;
+    }
+  }
+
+  private static final class ComponentKey {
+    private final long mask;
+    private final long[] cells;
+    private final int[] mines;
+    private final int hash;
+
+    private ComponentKey(long mask, List<Constraint> constraints) {
+      this.mask = mask;
+      this.cells = new long[constraints.size()];
+      this.mines = new int[constraints.size()];
+      for (int i = 0; i < cells.length; i++) {
+        cells[i] = constraints.get(i).cells;
+        mines[i] = constraints.get(i).mines;
+      }
+      this.hash = 31 * (31 * Long.hashCode(mask) + Arrays.hashCode(cells)) + Arrays.hashCode(mines);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      ComponentKey other = (ComponentKey) obj;
+      return mask == other.mask && Arrays.equals(cells, other.cells) && Arrays.equals(mines, other.mines);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static final class Component {
+    private final int[] squares;
+    private final int[][] cellConstraints;
+    private final int[] required;
+    private final int[] assigned;
+    private final int[] open;
+    private final boolean[] mine;
+    private double[] weights;
+    private double[][] cellWeights;
+    private boolean complete;
+    private long[] layouts;
+    private int layoutCount;
+    private long nodes;
+    private long limit;
+    private int target;
+    private double skip;
+
+    private Component(long mask, List<Constraint> local) {
+      squares = new int[Long.bitCount(mask)];
+      int count = 0;
+      for (long pending = mask; pending != 0; pending &= pending - 1) {
+        squares[count++] = Long.numberOfTrailingZeros(pending);
+      }
+      required = new int[local.size()];
+      open = new int[local.size()];
+      assigned = new int[local.size()];
+      cellConstraints = new int[squares.length][];
+      for (int c = 0; c < local.size(); c++) {
+        required[c] = local.get(c).mines;
+        open[c] = Long.bitCount(local.get(c).cells);
+      }
+      for (int cell = 0; cell < squares.length; cell++) {
+        long bit = 1L << squares[cell];
+        int[] ids = new int[local.size()];
+        int size = 0;
+        for (int c = 0; c < local.size(); c++) {
+          if ((local.get(c).cells & bit) != 0) {
+            ids[size++] = c;
+          }
+        }
+        cellConstraints[cell] = Arrays.copyOf(ids, size);
+      }
+      mine = new boolean[squares.length];
+    }
+
+    private boolean enumerate(long nodeLimit) {
+      weights = new double[squares.length + 1];
+      cellWeights = new double[squares.length + 1][squares.length];
+      layouts = new long[16];
+      layoutCount = 0;
+      limit = nodeLimit;
+      for (int c = 0; c < required.length; c++) {
+        if (required[c] < 0 || required[c] > open[c]) {
+          return true;
+        }
+      }
+      return search(0, 0);
+    }
+
+    private boolean search(int cell, int mines) {
+      if (++nodes > limit) {
+        return false;
+      }
+      if (cell == squares.length) {
+        weights[mines]++;
+        for (int i = 0; i < squares.length; i++) {
+          if (mine[i]) {
+            cellWeights[mines][i]++;
+          }
+        }
+        if (layouts != null) {
+          store(layout());
+        }
+        return true;
+      }
+      for (int value = 0; value <= 1; value++) {
+        if (place(cell, value == 1)) {
+          mine[cell] = value == 1;
+          if (!search(cell + 1, mines + value)) {
+            unplace(cell, value == 1);
+            return false;
+          }
+        }
+        unplace(cell, value == 1);
+      }
+      mine[cell] = false;
+      return true;
+    }
+
+    private void store(long layout) {
+      if (layoutCount == STORED_LAYOUTS) {
+        layouts = null;
+        return;
+      }
+      if (layoutCount == layouts.length) {
+        layouts = Arrays.copyOf(layouts, layouts.length * 2);
+      }
+      layouts[layoutCount++] = layout;
+    }
+
+    // Uniform over the enumerated layouts with the given mine count. Large
+    // components keep no list and walk the enumeration to the chosen index.
+    private long layout(int mines, Random random) {
+      skip = Math.floor(random.nextDouble() * weights[mines]);
+      if (layouts != null) {
+        for (int i = 0; i < layoutCount; i++) {
+          if (Long.bitCount(layouts[i]) == mines && skip-- == 0) {
+            return layouts[i];
+          }
+        }
+      }
+      target = mines;
+      select(0, 0);
+      return layout();
+    }
+
+    private boolean select(int cell, int mines) {
+      if (mines > target || mines + squares.length - cell < target) {
+        return false;
+      }
+      if (cell == squares.length) {
+        return skip-- == 0;
+      }
+      for (int value = 0; value <= 1; value++) {
+        boolean isMine = value == 1;
+        boolean found = place(cell, isMine);
+        if (found) {
+          mine[cell] = isMine;
+          found = select(cell + 1, mines + value);
+        }
+        unplace(cell, isMine);
+        if (found) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean draw(Random random, double[] marginals, long nodeLimit) {
+      nodes = 0;
+      limit = nodeLimit;
+      for (int c = 0; c < required.length; c++) {
+        if (required[c] < 0 || required[c] > open[c]) {
+          return false;
+        }
+      }
+      if (!draw(0, random, marginals)) {
+        return false;
+      }
+      for (int cell = 0; cell < squares.length; cell++) {
+        unplace(cell, mine[cell]);
+      }
+      return true;
+    }
+
+    private boolean draw(int cell, Random random, double[] marginals) {
+      if (++nodes > limit) {
+        return false;
+      }
+      if (cell == squares.length) {
+        return true;
+      }
+      boolean mineFirst = random.nextDouble() < marginals[squares[cell]];
+      for (int attempt = 0; attempt < 2; attempt++) {
+        boolean isMine = attempt == 0 ? mineFirst : !mineFirst;
+        mine[cell] = isMine;
+        if (place(cell, isMine) && draw(cell + 1, random, marginals)) {
+          return true;
+        }
+        unplace(cell, isMine);
+        if (nodes > limit) {
+          break;
+        }
+      }
+      mine[cell] = false;
+      return false;
+    }
+
+    private long layout() {
+      long layout = 0L;
+      for (int cell = 0; cell < squares.length; cell++) {
+        if (mine[cell]) {
+          layout |= 1L << squares[cell];
+        }
+      }
+      return layout;
+    }
+
+    private boolean place(int cell, boolean isMine) {
+      boolean consistent = true;
+      for (int c : cellConstraints[cell]) {
+        open[c]--;
+        if (isMine) {
+          assigned[c]++;
+        }
+        if (assigned[c] > required[c] || assigned[c] + open[c] < required[c]) {
+          consistent = false;
+        }
+      }
+      return consistent;
+    }
+
+    private void unplace(int cell, boolean isMine) {
+      for (int c : cellConstraints[cell]) {
+        open[c]++;
+        if (isMine) {
+          assigned[c]--;
+        }
+      }
+    }
+  }
+}
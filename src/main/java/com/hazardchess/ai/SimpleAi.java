@@ -3,31 +3,111 @@ package com.hazardchess.ai;
 import com.hazardchess.model.Board;
 import com.hazardchess.model.ChessEngine;
 import com.hazardchess.model.GameState;
-import com.hazardchess.model.Minefield;
 import com.hazardchess.model.Move;
 import com.hazardchess.model.Piece;
 import com.hazardchess.model.PieceType;
 import com.hazardchess.model.PlayerColor;
+import com.hazardchess.model.PlayerView;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+public final class SimpleAi implements AutoCloseable {
+  public static final long DEFAULT_SEARCH_BUDGET_MILLIS = 600;
+  public static final int DEFAULT_SEARCH_THREADS = 1;
+  private static final double CERTAIN = 1 - 1e-9;
 
-public final class SimpleAi {
   private final ChessEngine engine = new ChessEngine();
+  private final MineSolver solver = new MineSolver();
+  private final AlphaBetaSearch search;
+  private final IsmctsSearch ismcts = new IsmctsSearch(solver);
+  private int expertVisits = IsmctsSearch.DEFAULT_VISITS;
   private final Random random = new Random();
+  private long searchBudgetMillis = DEFAULT_SEARCH_BUDGET_MILLIS;
+
+  public SimpleAi() {
+    this(AlphaBetaSearch.DEFAULT_HASH_MEGABYTES);
+  }
+
+  public SimpleAi(int hashMegabytes) {
+    this.search = new AlphaBetaSearch(hashMegabytes, solver);
+    this.search.setThreads(DEFAULT_SEARCH_THREADS);
+    this.ismcts.setThreads(DEFAULT_SEARCH_THREADS);
+  }
+
+  public int getSearchThreads() {
+    return search.getThreads();
+  }
+
+  public void setSearchThreads(int threads) {
+    search.setThreads(threads);
+    ismcts.setThreads(threads);
+  }
+
+  public int getSearchDepth() {
+    return search.getMaxDepth();
+  }
+
+  public void setSearchDepth(int depth) {
+    search.setMaxDepth(depth);
+  }
+
+  public int getExpertVisits() {
+    return expertVisits;
+  }
+
+  public void setExpertVisits(int expertVisits) {
+    this.expertVisits = Math.max(1, expertVisits);
+  }
+
+  public void clearHash() {
+    search.clearHash();
+  }
+
+  public long getSearchBudgetMillis() {
+    return searchBudgetMillis;
+  }
+
+  public void setSearchBudgetMillis(long searchBudgetMillis) {
+    this.searchBudgetMillis = Math.max(1, searchBudgetMillis);
+  }
+
+  @Override
+  public void close() {
+    search.close();
+    ismcts.close();
+  }
 
   public Move chooseMove(GameState state, AiDifficulty difficulty) {
-    List<Move> moves = engine.legalMoves(state);
+    return chooseMove(state, difficulty, () -> false);
+  }
+
+  public Move chooseMove(GameState state, AiDifficulty difficulty, BooleanSupplier cancelled) {
+    return chooseMove(PlayerView.of(state, state.getToMove()), difficulty, cancelled);
+  }
+
+  public Move chooseMove(PlayerView view, AiDifficulty difficulty, BooleanSupplier cancelled) {
+    List<Move> moves = engine.legalMoves(view.withoutHiddenMines());
     if (moves.isEmpty()) {
       return null;
     }
     if (difficulty == AiDifficulty.EASY) {
       return moves.get(random.nextInt(moves.size()));
     }
-    int bestScore = Integer.MIN_VALUE;
+    if (difficulty == AiDifficulty.EXPERT) {
+      Move best = ismcts.search(view, expertVisits, searchBudgetMillis, cancelled);
+      return best != null ? best : moves.get(random.nextInt(moves.size()));
+    }
+    if (difficulty == AiDifficulty.HARD) {
+      Move best = search.search(view, searchBudgetMillis, cancelled);
+      return best != null ? best : moves.get(random.nextInt(moves.size()));
+    }
+    double[] risk = solver.solve(view);
+    double bestScore = Double.NEGATIVE_INFINITY;
     List<Move> best = new ArrayList<>();
     for (Move move : moves) {
-      int score = scoreMove(state, move, difficulty);
+      double score = scoreMove(view, move, risk);
       if (score > bestScore) {
         bestScore = score;
         best.clear();
@@ -40,44 +120,43 @@ public final class SimpleAi {
   }
 
   public boolean placeFlags(GameState state, AiDifficulty difficulty) {
+    long flags = suggestFlags(PlayerView.of(state, PlayerColor.BLACK), difficulty);
+    for (long pending = flags; pending != 0; pending &= pending - 1) {
+      int square = Long.numberOfTrailingZeros(pending);
+      state.toggleFlag(Board.rowOf(square), Board.colOf(square), PlayerColor.BLACK);
+    }
+    return flags != 0;
+  }
+
+  public long suggestFlags(PlayerView view, AiDifficulty difficulty) {
     if (difficulty == AiDifficulty.EASY) {
-      return false;
+      return 0L;
     }
-    Minefield minefield = state.getMinefield();
-    boolean changed = false;
-    for (int row = 0; row < Board.SIZE; row++) {
-      for (int col = 0; col < Board.SIZE; col++) {
-        if (!minefield.isRevealed(row, col) || minefield.isExploded(row, col)) {
-          continue;
-        }
-        int required = minefield.adjacentMines(row, col);
-        if (required == 0) {
-          continue;
-        }
-        int flagged = minefield.countFlagsAround(row, col, PlayerColor.BLACK);
-        int unknown = countUnknownNeighbors(minefield, row, col);
-        if (required - flagged == unknown) {
-          changed |= flagUnknownNeighbors(minefield, row, col);
-        }
+    double[] risk = solver.solve(view);
+    long candidates = ~(view.getRevealedMask() | view.getFlaggedMask());
+    long flags = 0L;
+    for (; candidates != 0; candidates &= candidates - 1) {
+      int square = Long.numberOfTrailingZeros(candidates);
+      if (risk[square] >= CERTAIN) {
+        flags |= 1L << square;
       }
     }
-    return changed;
+    return flags;
   }
 
-  private int scoreMove(GameState state, Move move, AiDifficulty difficulty) {
-    Board board = state.getBoard();
-    Piece target = board.getPiece(move.getTo().getRow(), move.getTo().getCol());
-    int score = 0;
+  private double scoreMove(PlayerView view, Move move, double[] risk) {
+    int toRow = move.getTo().getRow();
+    int toCol = move.getTo().getCol();
+    Piece target = view.getPiece(toRow, toCol);
+    Piece moving = view.getPiece(move.getFrom().getRow(), move.getFrom().getCol());
+    double score = 0;
     if (target != null) {
       score += captureValue(target.getType());
     }
-    if (difficulty != AiDifficulty.EASY) {
-      Minefield minefield = state.getMinefield();
-      if (minefield.isRevealed(move.getTo().getRow(), move.getTo().getCol())) {
-        score += difficulty == AiDifficulty.HARD ? 3 : 1;
-      } else {
-        score -= difficulty == AiDifficulty.HARD ? 3 : 1;
-      }
+    if (view.isRevealed(toRow, toCol)) {
+      score += 1;
+    } else {
+      score -= 1 + risk[Board.index(toRow, toCol)] * captureValue(moving.getType());
     }
     return score;
   }
@@ -91,51 +170,4 @@ public final class SimpleAi {
       case KING -> 20;
     };
   }
-
-  private int countUnknownNeighbors(Minefield minefield, int row, int col) {
-    int unknown = 0;
-    for (int dr = -1; dr <= 1; dr++) {
-      for (int dc = -1; dc <= 1; dc++) {
-        if (dr == 0 && dc == 0) {
-          continue;
-        }
-        int r = row + dr;
-        int c = col + dc;
-        if (!isInside(r, c)) {
-          continue;
-        }
-        if (!minefield.isRevealed(r, c) && !minefield.isExploded(r, c)
-            && !minefield.isFlagged(r, c, PlayerColor.BLACK)) {
-          unknown++;
-        }
-      }
-    }
-    return unknown;
-  }
-
-  private boolean flagUnknownNeighbors(Minefield minefield, int row, int col) {
-    boolean changed = false;
-    for (int dr = -1; dr <= 1; dr++) {
-      for (int dc = -1; dc <= 1; dc++) {
-        if (dr == 0 && dc == 0) {
-          continue;
-        }
-        int r = row + dr;
-        int c = col + dc;
-        if (!isInside(r, c)) {
-          continue;
-        }
-        if (!minefield.isRevealed(r, c) && !minefield.isExploded(r, c)
-            && !minefield.isFlagged(r, c, PlayerColor.BLACK)) {
-          minefield.toggleFlag(r, c, PlayerColor.BLACK);
-          changed = true;
-        }
-      }
-    }
-    return changed;
-  }
-
-  private boolean isInside(int row, int col) {
-    return row >= 0 && row < Board.SIZE && col >= 0 && col < Board.SIZE;
-  }
 }
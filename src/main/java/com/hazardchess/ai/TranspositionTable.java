@@ -0,0 +1,113 @@
+package com.hazardchess.ai;
+
+final class TranspositionTable {
+  static final int BOUND_NONE = 0;
+  static final int BOUND_EXACT = 1;
+  static final int BOUND_LOWER = 2;
+  static final int BOUND_UPPER = 3;
+  static final int NO_MOVE = 0;
+
+  // Each entry is two longs: (key ^ data, data). A torn write from another
+  // thread fails the key check instead of returning mixed data.
+  private static final int LONGS_PER_ENTRY = 2;
+  private static final int ENTRIES_PER_BUCKET = 2;
+  private static final int LONGS_PER_BUCKET = LONGS_PER_ENTRY * ENTRIES_PER_BUCKET;
+  private static final int BYTES_PER_BUCKET = LONGS_PER_BUCKET * Long.BYTES;
+
+  private static final int MOVE_BITS = 16;
+  private static final int SCORE_SHIFT = 16;
+  private static final int DEPTH_SHIFT = 32;
+  private static final int BOUND_SHIFT = 40;
+  private static final int AGE_SHIFT = 42;
+  private static final int AGE_MASK = 0xFF;
+
+  private final long[] table;
+  private final int bucketMask;
+  private int age;
+
+  TranspositionTable(int megabytes) {
+    long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+    long buckets = Long.highestOneBit(Math.max(1, bytes / BYTES_PER_BUCKET));
+    buckets = Math.min(buckets, Integer.highestOneBit(Integer.MAX_VALUE / LONGS_PER_BUCKET));
+    table = new long[(int) buckets * LONGS_PER_BUCKET];
+    bucketMask = (int) buckets - 1;
+  }
+
+  int sizeMegabytes() {
+    return (int) ((long) table.length * Long.BYTES / (1024 * 1024));
+  }
+
+  void clear() {
+    java.util.Arrays.fill(table, 0L);
+    age = 0;
+  }
+
+  void newSearch() {
+    age = (age + 1) & AGE_MASK;
+  }
+
+  long probe(long key) {
+    int base = bucket(key);
+    for (int i = 0; i < ENTRIES_PER_BUCKET; i++) {
+      int slot = base + i * LONGS_PER_ENTRY;
+      long data = table[slot + 1];
+      if ((table[slot] ^ data) == key && data != 0) {
+        return data;
+      }
+    }
+    return 0;
+  }
+
+  void store(long key, int depth, int bound, int score, int move) {
+    int base = bucket(key);
+    long data = pack(depth, bound, score, move);
+    int deepSlot = base;
+    long deepData = table[deepSlot + 1];
+    boolean sameKey = (table[deepSlot] ^ deepData) == key;
+    if (deepData == 0 || sameKey || depth >= depth(deepData) || age(deepData) != age) {
+      if (sameKey && move == NO_MOVE) {
+        data = pack(depth, bound, score, move(deepData));
+      }
+      write(deepSlot, key, data);
+      return;
+    }
+    write(base + LONGS_PER_ENTRY, key, data);
+  }
+
+  static int move(long data) {
+    return (int) (data & ((1 << MOVE_BITS) - 1));
+  }
+
+  static int score(long data) {
+    return (short) (data >>> SCORE_SHIFT);
+  }
+
+  static int depth(long data) {
+    return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+  }
+
+  static int bound(long data) {
+    return (int) ((data >>> BOUND_SHIFT) & 3);
+  }
+
+  private static int age(long data) {
+    return (int) ((data >>> AGE_SHIFT) & AGE_MASK);
+  }
+
+  private long pack(int depth, int bound, int score, int move) {
+    return (move & 0xFFFFL)
+        | (score & 0xFFFFL) << SCORE_SHIFT
+        | (long) Math.min(depth, 0xFF) << DEPTH_SHIFT
+        | (long) bound << BOUND_SHIFT
+        | (long) age << AGE_SHIFT;
+  }
+
+  private void write(int slot, long key, long data) {
+    table[slot] = key ^ data;
+    table[slot + 1] = data;
+  }
+
+  private int bucket(long key) {
+    return ((int) (key ^ (key >>> 32)) & bucketMask) * LONGS_PER_BUCKET;
+  }
+}
@@ -2,52 +2,87 @@ package com.hazardchess.model;
 
 public final class Board {
   public static final int SIZE = 8;
-  private final Piece[][] pieces = new Piece[SIZE][SIZE];
+  public static final int SQUARES = SIZE * SIZE;
+  private static final int PIECE_KINDS = 6;
+
+  private final long[] bitboards = new long[2 * PIECE_KINDS];
+  private final long[] occupancy = new long[2];
+  private final Piece[] squares = new Piece[SQUARES];
+  private long occupied;
+  private long key;
+
+  public static int index(int row, int col) {
+    return row * SIZE + col;
+  }
+
+  public static int rowOf(int index) {
+    return index >>> 3;
+  }
+
+  public static int colOf(int index) {
+    return index & 7;
+  }
 
   public Piece getPiece(int row, int col) {
-    return pieces[row][col];
+    return squares[index(row, col)];
+  }
+
+  public Piece getPiece(int index) {
+    return squares[index];
   }
 
   public void setPiece(int row, int col, Piece piece) {
-    pieces[row][col] = piece;
+    int index = index(row, col);
+    clearSquare(index);
+    if (piece != null) {
+      placeOnSquare(index, piece);
+    }
   }
 
   public Piece removePiece(int row, int col) {
-    Piece piece = pieces[row][col];
-    pieces[row][col] = null;
-    return piece;
+    return clearSquare(index(row, col));
   }
 
   public boolean isEmpty(int row, int col) {
-    return pieces[row][col] == null;
+    return (occupied & (1L << index(row, col))) == 0;
   }
 
   public boolean isInside(int row, int col) {
     return row >= 0 && row < SIZE && col >= 0 && col < SIZE;
   }
 
+  public long getBitboard(PlayerColor color, PieceType type) {
+    return bitboards[kind(color, type)];
+  }
+
+  public long getOccupancy(PlayerColor color) {
+    return occupancy[color.ordinal()];
+  }
+
+  public long getOccupied() {
+    return occupied;
+  }
+
+  long getKey() {
+    return key;
+  }
+
   public Square findKing(PlayerColor color) {
-    for (int row = 0; row < SIZE; row++) {
-      for (int col = 0; col < SIZE; col++) {
-        Piece piece = pieces[row][col];
-        if (piece != null && piece.getColor() == color && piece.getType() == PieceType.KING) {
-          return new Square(row, col);
-        }
-      }
+    long kings = bitboards[kind(color, PieceType.KING)];
+    if (kings == 0) {
+      return null;
     }
-    return null;
+    int index = Long.numberOfTrailingZeros(kings);
+    return new Square(rowOf(index), colOf(index));
   }
 
   public Board copy() {
     Board clone = new Board();
-    for (int row = 0; row < SIZE; row++) {
-      for (int col = 0; col < SIZE; col++) {
-        Piece piece = pieces[row][col];
-        if (piece != null) {
-          clone.setPiece(row, col, new Piece(piece.getColor(), piece.getType()));
-        }
-      }
-    }
+    System.arraycopy(bitboards, 0, clone.bitboards, 0, bitboards.length);
+    System.arraycopy(occupancy, 0, clone.occupancy, 0, occupancy.length);
+    System.arraycopy(squares, 0, clone.squares, 0, SQUARES);
+    clone.occupied = occupied;
+    clone.key = key;
     return clone;
   }
 
@@ -60,27 +95,56 @@ public final class Board {
   }
 
   private void placeBackRank(int row, PlayerColor color) {
-    setPiece(row, 0, new Piece(color, PieceType.ROOK));
-    setPiece(row, 1, new Piece(color, PieceType.KNIGHT));
-    setPiece(row, 2, new Piece(color, PieceType.BISHOP));
-    setPiece(row, 3, new Piece(color, PieceType.QUEEN));
-    setPiece(row, 4, new Piece(color, PieceType.KING));
-    setPiece(row, 5, new Piece(color, PieceType.BISHOP));
-    setPiece(row, 6, new Piece(color, PieceType.KNIGHT));
-    setPiece(row, 7, new Piece(color, PieceType.ROOK));
+    setPiece(row, 0, Piece.of(color, PieceType.ROOK));
+    setPiece(row, 1, Piece.of(color, PieceType.KNIGHT));
+    setPiece(row, 2, Piece.of(color, PieceType.BISHOP));
+    setPiece(row, 3, Piece.of(color, PieceType.QUEEN));
+    setPiece(row, 4, Piece.of(color, PieceType.KING));
+    setPiece(row, 5, Piece.of(color, PieceType.BISHOP));
+    setPiece(row, 6, Piece.of(color, PieceType.KNIGHT));
+    setPiece(row, 7, Piece.of(color, PieceType.ROOK));
   }
 
   private void placePawns(int row, PlayerColor color) {
     for (int col = 0; col < SIZE; col++) {
-      setPiece(row, col, new Piece(color, PieceType.PAWN));
+      setPiece(row, col, Piece.of(color, PieceType.PAWN));
     }
   }
 
   public void clear() {
-    for (int row = 0; row < SIZE; row++) {
-      for (int col = 0; col < SIZE; col++) {
-        pieces[row][col] = null;
-      }
+    java.util.Arrays.fill(bitboards, 0L);
+    java.util.Arrays.fill(occupancy, 0L);
+    java.util.Arrays.fill(squares, null);
+    occupied = 0L;
+    key = 0L;
+  }
+
+  private void placeOnSquare(int index, Piece piece) {
+    long bit = 1L << index;
+    int kind = kind(piece.getColor(), piece.getType());
+    squares[index] = piece;
+    bitboards[kind] |= bit;
+    key ^= Zobrist.PIECES[kind][index];
+    occupancy[piece.getColor().ordinal()] |= bit;
+    occupied |= bit;
+  }
+
+  private Piece clearSquare(int index) {
+    Piece piece = squares[index];
+    if (piece == null) {
+      return null;
     }
+    long mask = ~(1L << index);
+    int kind = kind(piece.getColor(), piece.getType());
+    squares[index] = null;
+    bitboards[kind] &= mask;
+    key ^= Zobrist.PIECES[kind][index];
+    occupancy[piece.getColor().ordinal()] &= mask;
+    occupied &= mask;
+    return piece;
+  }
+
+  private static int kind(PlayerColor color, PieceType type) {
+    return color.ordinal() * PIECE_KINDS + type.ordinal();
   }
 }
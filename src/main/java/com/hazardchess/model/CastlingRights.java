@@ -46,4 +46,18 @@ public final class CastlingRights {
   public void revokeBlackQueenSide() {
     blackQueenSide = false;
   }
+
+  int toBits() {
+    return (whiteKingSide ? 1 : 0)
+        | (whiteQueenSide ? 2 : 0)
+        | (blackKingSide ? 4 : 0)
+        | (blackQueenSide ? 8 : 0);
+  }
+
+  void restoreBits(int bits) {
+    whiteKingSide = (bits & 1) != 0;
+    whiteQueenSide = (bits & 2) != 0;
+    blackKingSide = (bits & 4) != 0;
+    blackQueenSide = (bits & 8) != 0;
+  }
 }
@@ -30,13 +30,11 @@ public final class ChessEngine {
 
   public List<Move> legalMoves(GameState state) {
     List<Move> moves = new ArrayList<>();
-    for (int row = 0; row < Board.SIZE; row++) {
-      for (int col = 0; col < Board.SIZE; col++) {
-        Piece piece = state.getBoard().getPiece(row, col);
-        if (piece != null && piece.getColor() == state.getToMove()) {
-          moves.addAll(legalMoves(state, new Square(row, col)));
-        }
-      }
+    long own = state.getBoard().getOccupancy(state.getToMove());
+    while (own != 0) {
+      int index = Long.numberOfTrailingZeros(own);
+      own &= own - 1;
+      moves.addAll(legalMoves(state, new Square(Board.rowOf(index), Board.colOf(index))));
     }
     return moves;
   }
@@ -74,14 +72,20 @@ public final class ChessEngine {
 
   private List<Move> pseudoMoves(GameState state, Square from, Piece piece) {
     List<Move> moves = new ArrayList<>();
+    Board board = state.getBoard();
+    int square = Board.index(from.getRow(), from.getCol());
+    long occupied = board.getOccupied();
+    long targets = ~board.getOccupancy(piece.getColor());
     switch (piece.getType()) {
       case PAWN -> addPawnMoves(state, from, piece, moves);
-      case KNIGHT -> addKnightMoves(state, from, piece, moves);
-      case BISHOP -> addSlidingMoves(state, from, piece, moves, new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}});
-      case ROOK -> addSlidingMoves(state, from, piece, moves, new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}});
-      case QUEEN -> addSlidingMoves(state, from, piece, moves,
-          new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}});
-      case KING -> addKingMoves(state, from, piece, moves);
+      case KNIGHT -> addTargetMoves(from, Attacks.knight(square) & targets, moves);
+      case BISHOP -> addTargetMoves(from, Attacks.bishop(square, occupied) & targets, moves);
+      case ROOK -> addTargetMoves(from, Attacks.rook(square, occupied) & targets, moves);
+      case QUEEN -> addTargetMoves(from, Attacks.queen(square, occupied) & targets, moves);
+      case KING -> {
+        addTargetMoves(from, Attacks.king(square) & targets, moves);
+        addCastlingMoves(state, piece, moves);
+      }
     }
     return moves;
   }
@@ -107,85 +111,33 @@ public final class ChessEngine {
       }
     }
 
-    for (int dc : new int[]{-1, 1}) {
-      int targetRow = from.getRow() + dir;
-      int targetCol = from.getCol() + dc;
-      if (!board.isInside(targetRow, targetCol)) {
-        continue;
-      }
-      Piece target = board.getPiece(targetRow, targetCol);
-      if (target != null && target.getColor() != piece.getColor()) {
-        if (targetRow == promotionRow) {
-          addPromotionMoves(from, new Square(targetRow, targetCol), moves);
-        } else {
-          moves.add(new Move(from, new Square(targetRow, targetCol)));
-        }
-      } else if (state.getEnPassantTarget() != null
-          && state.getEnPassantTarget().getRow() == targetRow
-          && state.getEnPassantTarget().getCol() == targetCol) {
-        moves.add(new Move(from, new Square(targetRow, targetCol), false, false, true, null));
+    long attacks = Attacks.pawn(piece.getColor(), Board.index(from.getRow(), from.getCol()));
+    long captures = attacks & board.getOccupancy(opposite(piece.getColor()));
+    while (captures != 0) {
+      int target = Long.numberOfTrailingZeros(captures);
+      captures &= captures - 1;
+      Square to = new Square(Board.rowOf(target), Board.colOf(target));
+      if (to.getRow() == promotionRow) {
+        addPromotionMoves(from, to, moves);
+      } else {
+        moves.add(new Move(from, to));
       }
     }
-  }
-
-  private void addKnightMoves(GameState state, Square from, Piece piece, List<Move> moves) {
-    Board board = state.getBoard();
-    int[][] offsets = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
-    for (int[] offset : offsets) {
-      int r = from.getRow() + offset[0];
-      int c = from.getCol() + offset[1];
-      if (!board.isInside(r, c)) {
-        continue;
-      }
-      Piece target = board.getPiece(r, c);
-      if (target == null || target.getColor() != piece.getColor()) {
-        moves.add(new Move(from, new Square(r, c)));
-      }
+    Square enPassant = state.getEnPassantTarget();
+    if (enPassant != null && board.isEmpty(enPassant.getRow(), enPassant.getCol())
+        && (attacks & (1L << Board.index(enPassant.getRow(), enPassant.getCol()))) != 0) {
+      moves.add(new Move(from, enPassant, false, false, true, null));
     }
   }
 
-  private void addSlidingMoves(GameState state, Square from, Piece piece, List<Move> moves, int[][] directions) {
-    Board board = state.getBoard();
-    for (int[] dir : directions) {
-      int r = from.getRow() + dir[0];
-      int c = from.getCol() + dir[1];
-      while (board.isInside(r, c)) {
-        Piece target = board.getPiece(r, c);
-        if (target == null) {
-          moves.add(new Move(from, new Square(r, c)));
-        } else {
-          if (target.getColor() != piece.getColor()) {
-            moves.add(new Move(from, new Square(r, c)));
-          }
-          break;
-        }
-        r += dir[0];
-        c += dir[1];
-      }
+  private void addTargetMoves(Square from, long targets, List<Move> moves) {
+    while (targets != 0) {
+      int target = Long.numberOfTrailingZeros(targets);
+      targets &= targets - 1;
+      moves.add(new Move(from, new Square(Board.rowOf(target), Board.colOf(target))));
     }
   }
 
-  private void addKingMoves(GameState state, Square from, Piece piece, List<Move> moves) {
-    Board board = state.getBoard();
-    for (int dr = -1; dr <= 1; dr++) {
-      for (int dc = -1; dc <= 1; dc++) {
-        if (dr == 0 && dc == 0) {
-          continue;
-        }
-        int r = from.getRow() + dr;
-        int c = from.getCol() + dc;
-        if (!board.isInside(r, c)) {
-          continue;
-        }
-        Piece target = board.getPiece(r, c);
-        if (target == null || target.getColor() != piece.getColor()) {
-          moves.add(new Move(from, new Square(r, c)));
-        }
-      }
-    }
-    addCastlingMoves(state, piece, moves);
-  }
-
   private void addCastlingMoves(GameState state, Piece piece, List<Move> moves) {
     PlayerColor color = piece.getColor();
     int row = color == PlayerColor.WHITE ? 7 : 0;
@@ -218,6 +170,9 @@ public final class ChessEngine {
     if (!board.isEmpty(row, stepCol) || !board.isEmpty(row, destCol)) {
       return false;
     }
+    if (rookCol == 0 && !board.isEmpty(row, 1)) {
+      return false;
+    }
     Piece rook = board.getPiece(row, rookCol);
     if (rook == null || rook.getType() != PieceType.ROOK || rook.getColor() != state.getToMove()) {
       return false;
@@ -236,13 +191,35 @@ public final class ChessEngine {
   }
 
   private boolean isLegalAfterMove(GameState state, Move move, PlayerColor color) {
-    Board copy = state.getBoard().copy();
-    applyMoveOnBoard(copy, move, color);
-    Square king = copy.findKing(color);
-    if (king == null) {
-      return false;
+    Board board = state.getBoard();
+    int[] touched = touchedSquares(move, color);
+    Piece[] saved = new Piece[touched.length];
+    for (int i = 0; i < touched.length; i++) {
+      saved[i] = board.getPiece(touched[i]);
+    }
+    applyMoveOnBoard(board, move, color);
+    Square king = board.findKing(color);
+    boolean legal = king != null && !isSquareAttacked(board, opposite(color), king);
+    for (int i = 0; i < touched.length; i++) {
+      board.setPiece(Board.rowOf(touched[i]), Board.colOf(touched[i]), saved[i]);
     }
-    return !isSquareAttacked(copy, opposite(color), king);
+    return legal;
+  }
+
+  private int[] touchedSquares(Move move, PlayerColor color) {
+    int from = Board.index(move.getFrom().getRow(), move.getFrom().getCol());
+    int to = Board.index(move.getTo().getRow(), move.getTo().getCol());
+    if (move.isCastleKingSide() || move.isCastleQueenSide()) {
+      int row = color == PlayerColor.WHITE ? 7 : 0;
+      return move.isCastleKingSide()
+          ? new int[]{Board.index(row, 4), Board.index(row, 5), Board.index(row, 6), Board.index(row, 7)}
+          : new int[]{Board.index(row, 0), Board.index(row, 2), Board.index(row, 3), Board.index(row, 4)};
+    }
+    if (move.isEnPassant()) {
+      int captureRow = move.getTo().getRow() + (color == PlayerColor.WHITE ? 1 : -1);
+      return new int[]{from, to, Board.index(captureRow, move.getTo().getCol())};
+    }
+    return new int[]{from, to};
   }
 
   private void applyMoveOnBoard(Board board, Move move, PlayerColor color) {
@@ -277,81 +254,20 @@ public final class ChessEngine {
     board.removePiece(move.getFrom().getRow(), move.getFrom().getCol());
     Piece toPlace = moving;
     if (move.isPromotion()) {
-      toPlace = new Piece(color, move.getPromotion());
+      toPlace = Piece.of(color, move.getPromotion());
     }
     board.setPiece(move.getTo().getRow(), move.getTo().getCol(), toPlace);
   }
 
   private boolean isSquareAttacked(Board board, PlayerColor attacker, Square target) {
-    int dir = attacker == PlayerColor.WHITE ? -1 : 1;
-    int pawnRow = target.getRow() - dir;
-    for (int dc : new int[]{-1, 1}) {
-      int pawnCol = target.getCol() + dc;
-      if (board.isInside(pawnRow, pawnCol)) {
-        Piece piece = board.getPiece(pawnRow, pawnCol);
-        if (piece != null && piece.getColor() == attacker && piece.getType() == PieceType.PAWN) {
-          return true;
-        }
-      }
-    }
-
-    int[][] knightOffsets = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
-    for (int[] offset : knightOffsets) {
-      int r = target.getRow() + offset[0];
-      int c = target.getCol() + offset[1];
-      if (board.isInside(r, c)) {
-        Piece piece = board.getPiece(r, c);
-        if (piece != null && piece.getColor() == attacker && piece.getType() == PieceType.KNIGHT) {
-          return true;
-        }
-      }
-    }
-
-    if (isAttackedBySliding(board, attacker, target, new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}},
-        PieceType.ROOK, PieceType.QUEEN)) {
-      return true;
-    }
-    if (isAttackedBySliding(board, attacker, target, new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}},
-        PieceType.BISHOP, PieceType.QUEEN)) {
-      return true;
-    }
-
-    for (int dr = -1; dr <= 1; dr++) {
-      for (int dc = -1; dc <= 1; dc++) {
-        if (dr == 0 && dc == 0) {
-          continue;
-        }
-        int r = target.getRow() + dr;
-        int c = target.getCol() + dc;
-        if (board.isInside(r, c)) {
-          Piece piece = board.getPiece(r, c);
-          if (piece != null && piece.getColor() == attacker && piece.getType() == PieceType.KING) {
-            return true;
-          }
-        }
-      }
-    }
-    return false;
-  }
-
-  private boolean isAttackedBySliding(Board board, PlayerColor attacker, Square target, int[][] directions,
-                                      PieceType typeA, PieceType typeB) {
-    for (int[] dir : directions) {
-      int r = target.getRow() + dir[0];
-      int c = target.getCol() + dir[1];
-      while (board.isInside(r, c)) {
-        Piece piece = board.getPiece(r, c);
-        if (piece != null) {
-          if (piece.getColor() == attacker && (piece.getType() == typeA || piece.getType() == typeB)) {
-            return true;
-          }
-          break;
-        }
-        r += dir[0];
-        c += dir[1];
-      }
-    }
-    return false;
+    int square = Board.index(target.getRow(), target.getCol());
+    long occupied = board.getOccupied();
+    long queens = board.getBitboard(attacker, PieceType.QUEEN);
+    return (Attacks.pawn(opposite(attacker), square) & board.getBitboard(attacker, PieceType.PAWN)) != 0
+        || (Attacks.knight(square) & board.getBitboard(attacker, PieceType.KNIGHT)) != 0
+        || (Attacks.king(square) & board.getBitboard(attacker, PieceType.KING)) != 0
+        || (Attacks.rook(square, occupied) & (board.getBitboard(attacker, PieceType.ROOK) | queens)) != 0
+        || (Attacks.bishop(square, occupied) & (board.getBitboard(attacker, PieceType.BISHOP) | queens)) != 0;
   }
 
   private PlayerColor opposite(PlayerColor color) {
@@ -0,0 +1,113 @@
+package com.hazardchess.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// An append-only list stored in fixed-size chunks. copyFrom shares the
+// chunks instead of copying them; whichever side writes into a shared chunk
+// first copies just that chunk, so forking a long game history is O(1) and
+// the next append costs at most one chunk.
+final class ChunkedLog<T> {
+  private static final int CHUNK_BITS = 6;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final Object[][] NO_CHUNKS = new Object[0][];
+
+  private Object[][] chunks = NO_CHUNKS;
+  private int size;
+  private int sharedSize;
+  private boolean directoryShared;
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  T get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return (T) chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+  }
+
+  T last() {
+    return size == 0 ? null : get(size - 1);
+  }
+
+  void append(T value) {
+    int chunk = size >>> CHUNK_BITS;
+    if (directoryShared || chunk == chunks.length) {
+      // Chunks past the live entries may still be written by whoever we
+      // shared the directory with, so the copy leaves them behind.
+      Object[][] directory = new Object[chunk < chunks.length ? chunks.length : Math.max(4, chunks.length * 2)][];
+      System.arraycopy(chunks, 0, directory, 0, (size + CHUNK_MASK) >>> CHUNK_BITS);
+      chunks = directory;
+      directoryShared = false;
+    }
+    if (chunks[chunk] == null) {
+      chunks[chunk] = new Object[CHUNK_SIZE];
+    } else if (chunk << CHUNK_BITS < sharedSize) {
+      chunks[chunk] = chunks[chunk].clone();
+      for (int stale = chunk + 1; stale < chunks.length; stale++) {
+        chunks[stale] = null;
+      }
+      sharedSize = chunk << CHUNK_BITS;
+    }
+    chunks[chunk][size & CHUNK_MASK] = value;
+    size++;
+  }
+
+  void truncate(int newSize) {
+    if (newSize < size) {
+      size = Math.max(0, newSize);
+    }
+  }
+
+  T pop() {
+    T value = last();
+    truncate(size - 1);
+    return value;
+  }
+
+  void clear() {
+    chunks = NO_CHUNKS;
+    size = 0;
+    sharedSize = 0;
+    directoryShared = false;
+  }
+
+  void addAll(List<T> values) {
+    if (values != null) {
+      for (T value : values) {
+        append(value);
+      }
+    }
+  }
+
+  void copyFrom(ChunkedLog<T> other) {
+    if (other.sharedSize < other.size) {
+      other.sharedSize = other.size;
+    }
+    if (!other.directoryShared) {
+      other.directoryShared = true;
+    }
+    chunks = other.chunks;
+    size = other.size;
+    sharedSize = other.sharedSize;
+    directoryShared = true;
+  }
+
+  @SuppressWarnings("unchecked")
+  List<T> toList() {
+    List<T> values = new ArrayList<>(size);
+    for (int index = 0; index < size; index++) {
+      values.add((T) chunks[index >>> CHUNK_BITS][index & CHUNK_MASK]);
+    }
+    return Collections.unmodifiableList(values);
+  }
+}
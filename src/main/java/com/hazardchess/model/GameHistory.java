@@ -0,0 +1,39 @@
+package com.hazardchess.model;
+
+final class GameHistory {
+  final ChunkedLog<Move> moves = new ChunkedLog<>();
+  final ChunkedLog<Integer> actions = new ChunkedLog<>();
+  final ChunkedLog<Piece> capturedWhite = new ChunkedLog<>();
+  final ChunkedLog<Piece> capturedBlack = new ChunkedLog<>();
+  final ChunkedLog<Piece> minedWhite = new ChunkedLog<>();
+  final ChunkedLog<Piece> minedBlack = new ChunkedLog<>();
+  final ChunkedLog<Long> positions = new ChunkedLog<>();
+  final ChunkedLog<Move> redoStack = new ChunkedLog<>();
+
+  void copyFrom(GameHistory other) {
+    moves.copyFrom(other.moves);
+    actions.copyFrom(other.actions);
+    capturedWhite.copyFrom(other.capturedWhite);
+    capturedBlack.copyFrom(other.capturedBlack);
+    minedWhite.copyFrom(other.minedWhite);
+    minedBlack.copyFrom(other.minedBlack);
+    positions.copyFrom(other.positions);
+    redoStack.copyFrom(other.redoStack);
+  }
+
+  ChunkedLog<Piece> captured(PlayerColor capturer) {
+    return capturer == PlayerColor.WHITE ? capturedWhite : capturedBlack;
+  }
+
+  ChunkedLog<Piece> mined(PlayerColor color) {
+    return color == PlayerColor.WHITE ? minedWhite : minedBlack;
+  }
+
+  int[] actionArray() {
+    int[] log = new int[actions.size()];
+    for (int i = 0; i < log.length; i++) {
+      log[i] = actions.get(i);
+    }
+    return log;
+  }
+}
@@ -1,43 +1,106 @@
 package com.hazardchess.model;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
 public final class GameState {
+  public static final int FLAG_ACTION = 1 << 16;
   private static final int DEFAULT_MINES = 12;
+  private static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
 
-  private final Board board = new Board();
+  private final Board board;
   private final Minefield minefield = new Minefield();
-  private final List<Move> moveHistory = new ArrayList<>();
-  private final Deque<Move> redoStack = new ArrayDeque<>();
-  private final List<Piece> capturedWhite = new ArrayList<>();
-  private final List<Piece> capturedBlack = new ArrayList<>();
-  private final List<Piece> minedWhite = new ArrayList<>();
-  private final List<Piece> minedBlack = new ArrayList<>();
-  private final List<String> positionHistory = new ArrayList<>();
-  private final Map<String, Integer> positionCounts = new HashMap<>();
+  private final GameHistory history = new GameHistory();
+  private final ChunkedLog<MoveUndo> undoRecords = new ChunkedLog<>();
+  private final Map<Long, Integer> positionCounts = new HashMap<>();
   private int halfmoveClock;
   private long elapsedSeconds;
   private boolean botEnabled = true;
+  private boolean layoutHidden;
   private CastlingRights castlingRights = new CastlingRights();
   private Square enPassantTarget;
   private PlayerColor toMove = PlayerColor.WHITE;
+  private MoveUndo recording;
+  private Long mineSeed;
+  private int mineCount;
 
   public GameState() {
-    this(DEFAULT_MINES, new Random());
+    this(DEFAULT_MINES, new Random().nextLong());
+  }
+
+  public GameState(int mineCount, long mineSeed) {
+    this(mineCount, new Random(mineSeed));
+    this.mineSeed = mineSeed;
   }
 
   public GameState(int mineCount, Random random) {
+    board = new Board();
     board.setupStandard();
     minefield.generate(mineCount, random, null);
+    this.mineCount = mineCount;
     resetPositionHistory();
   }
 
+  GameState(Board board) {
+    this.board = board;
+  }
+
+  GameState(PersistentGameState snapshot) {
+    this(new Board());
+    for (PlayerColor color : PlayerColor.values()) {
+      for (PieceType type : PieceType.values()) {
+        long pieces = snapshot.getBitboard(color, type);
+        while (pieces != 0) {
+          int square = Long.numberOfTrailingZeros(pieces);
+          pieces &= pieces - 1;
+          board.setPiece(Board.rowOf(square), Board.colOf(square), Piece.of(color, type));
+        }
+      }
+    }
+    minefield.setLayers(snapshot.getMineMask(), snapshot.getRevealedMask(), snapshot.getExplodedMask(),
+        snapshot.getFlaggedMask(PlayerColor.WHITE), snapshot.getFlaggedMask(PlayerColor.BLACK),
+        snapshot.getArmedLow(), snapshot.getArmedHigh());
+    history.copyFrom(snapshot.history);
+    for (int i = 0; i < history.positions.size(); i++) {
+      positionCounts.merge(history.positions.get(i), 1, Integer::sum);
+    }
+    castlingRights.restoreBits(snapshot.getCastlingBits());
+    enPassantTarget = snapshot.getEnPassantTarget();
+    toMove = snapshot.getToMove();
+    halfmoveClock = snapshot.getHalfmoveClock();
+    elapsedSeconds = snapshot.getElapsedSeconds();
+    botEnabled = snapshot.isBotEnabled();
+    layoutHidden = snapshot.isLayoutHidden();
+    mineSeed = snapshot.getMineSeed();
+    mineCount = snapshot.getMineCount();
+  }
+
+  public GameState copy() {
+    GameState clone = new GameState(board.copy());
+    clone.minefield.copyFrom(minefield);
+    clone.history.copyFrom(history);
+    clone.undoRecords.copyFrom(undoRecords);
+    clone.positionCounts.putAll(positionCounts);
+    clone.halfmoveClock = halfmoveClock;
+    clone.elapsedSeconds = elapsedSeconds;
+    clone.botEnabled = botEnabled;
+    clone.layoutHidden = layoutHidden;
+    clone.castlingRights = castlingRights.copy();
+    clone.enPassantTarget = enPassantTarget;
+    clone.toMove = toMove;
+    clone.mineSeed = mineSeed;
+    clone.mineCount = mineCount;
+    return clone;
+  }
+
+  public PersistentGameState snapshot() {
+    return new PersistentGameState(this, history, layoutHidden);
+  }
+
   public Board getBoard() {
     return board;
   }
@@ -51,27 +114,29 @@ public final class GameState {
   }
 
   public List<Move> getMoveHistory() {
-    return List.copyOf(moveHistory);
+    return history.moves.toList();
   }
 
   public List<Move> getRedoStack() {
-    return List.copyOf(redoStack);
+    List<Move> topFirst = new ArrayList<>(history.redoStack.toList());
+    Collections.reverse(topFirst);
+    return Collections.unmodifiableList(topFirst);
   }
 
   public List<Piece> getCapturedWhite() {
-    return List.copyOf(capturedWhite);
+    return history.capturedWhite.toList();
   }
 
   public List<Piece> getCapturedBlack() {
-    return List.copyOf(capturedBlack);
+    return history.capturedBlack.toList();
   }
 
   public List<Piece> getMinedWhite() {
-    return List.copyOf(minedWhite);
+    return history.minedWhite.toList();
   }
 
   public List<Piece> getMinedBlack() {
-    return List.copyOf(minedBlack);
+    return history.minedBlack.toList();
   }
 
   public long getElapsedSeconds() {
@@ -82,8 +147,67 @@ public final class GameState {
     return halfmoveClock;
   }
 
-  public List<String> getPositionHistory() {
-    return List.copyOf(positionHistory);
+  public List<Long> getPositionHistory() {
+    return history.positions.toList();
+  }
+
+  public long getPositionKey() {
+    long key = board.getKey() ^ minefield.getKey() ^ Zobrist.CASTLING[castlingRights.toBits()];
+    if (toMove == PlayerColor.BLACK) {
+      key ^= Zobrist.BLACK_TO_MOVE;
+    }
+    if (enPassantTarget != null) {
+      key ^= Zobrist.EN_PASSANT_FILE[enPassantTarget.getCol()];
+    }
+    return key;
+  }
+
+  public Long getMineSeed() {
+    return mineSeed;
+  }
+
+  public int getMineCount() {
+    return mineCount;
+  }
+
+  public int[] getActions() {
+    return history.actionArray();
+  }
+
+  public void setActionLog(int mineCount, Long mineSeed, int[] actions) {
+    this.mineCount = Math.max(0, mineCount);
+    this.mineSeed = mineSeed;
+    history.actions.clear();
+    if (actions != null) {
+      for (int action : actions) {
+        history.actions.append(action);
+      }
+    }
+  }
+
+  public static int flagAction(int row, int col, PlayerColor color) {
+    return FLAG_ACTION | color.ordinal() << 6 | Board.index(row, col);
+  }
+
+  public static GameState replay(int mineCount, long mineSeed, int[] actions) {
+    GameState state = new GameState(mineCount, mineSeed);
+    for (int action : actions) {
+      state.applyAction(action);
+    }
+    return state;
+  }
+
+  public void applyAction(int action) {
+    if ((action & FLAG_ACTION) != 0) {
+      int square = action & 63;
+      toggleFlag(Board.rowOf(square), Board.colOf(square), PlayerColor.values()[(action >>> 6) & 1]);
+    } else {
+      applyMove(Move.decode(action));
+    }
+  }
+
+  void hideLayout() {
+    layoutHidden = true;
   }
 
   public boolean isBotEnabled() {
@@ -102,49 +226,40 @@ public final class GameState {
     this.toMove = toMove;
   }
 
-  public void setMoveHistory(List<Move> history) {
-    moveHistory.clear();
-    if (history != null) {
-      moveHistory.addAll(history);
-    }
+  public void setMoveHistory(List<Move> moves) {
+    history.moves.clear();
+    undoRecords.clear();
+    history.moves.addAll(moves);
   }
 
   public void setRedoStack(List<Move> redoTopFirst) {
-    redoStack.clear();
+    history.redoStack.clear();
     if (redoTopFirst == null) {
       return;
     }
     for (int i = redoTopFirst.size() - 1; i >= 0; i--) {
-      redoStack.push(redoTopFirst.get(i));
+      history.redoStack.append(redoTopFirst.get(i));
     }
   }
 
   public void setCapturedWhite(List<Piece> pieces) {
-    capturedWhite.clear();
-    if (pieces != null) {
-      capturedWhite.addAll(pieces);
-    }
+    history.capturedWhite.clear();
+    history.capturedWhite.addAll(pieces);
   }
 
   public void setCapturedBlack(List<Piece> pieces) {
-    capturedBlack.clear();
-    if (pieces != null) {
-      capturedBlack.addAll(pieces);
-    }
+    history.capturedBlack.clear();
+    history.capturedBlack.addAll(pieces);
   }
 
   public void setMinedWhite(List<Piece> pieces) {
-    minedWhite.clear();
-    if (pieces != null) {
-      minedWhite.addAll(pieces);
-    }
+    history.minedWhite.clear();
+    history.minedWhite.addAll(pieces);
   }
 
   public void setMinedBlack(List<Piece> pieces) {
-    minedBlack.clear();
-    if (pieces != null) {
-      minedBlack.addAll(pieces);
-    }
+    history.minedBlack.clear();
+    history.minedBlack.addAll(pieces);
   }
 
   public void setElapsedSeconds(long elapsedSeconds) {
@@ -155,15 +270,15 @@ public final class GameState {
     this.halfmoveClock = Math.max(0, halfmoveClock);
   }
 
-  public void setPositionHistory(List<String> history) {
-    positionHistory.clear();
+  public void setPositionHistory(List<Long> keys) {
+    history.positions.clear();
     positionCounts.clear();
-    if (history == null || history.isEmpty()) {
+    if (keys == null || keys.isEmpty()) {
       resetPositionHistory();
       return;
     }
-    for (String hash : history) {
-      addPositionHash(hash);
+    for (Long key : keys) {
+      addPositionHash(key);
     }
   }
 
@@ -179,11 +294,49 @@ public final class GameState {
     this.enPassantTarget = enPassantTarget;
   }
 
-  public void applyMove(Move move) {
+  public boolean toggleFlag(int row, int col, PlayerColor color) {
+    long before = minefield.getFlaggedMask(color);
+    minefield.toggleFlag(row, col, color);
+    if (minefield.getFlaggedMask(color) == before) {
+      return false;
+    }
+    recordAction(flagAction(row, col, color));
+    return true;
+  }
+
+  public void unmakeFlag(int row, int col, PlayerColor color) {
+    long before = minefield.getFlaggedMask(color);
+    minefield.toggleFlag(row, col, color);
+    if (minefield.getFlaggedMask(color) == before) {
+      return;
+    }
+    int action = flagAction(row, col, color);
+    Integer last = history.actions.last();
+    if (last != null && last == action) {
+      history.actions.pop();
+    } else {
+      recordAction(action);
+    }
+  }
+
+  public boolean applyMove(Move move) {
+    if (makeMove(move) == null) {
+      return false;
+    }
+    history.redoStack.clear();
+    return true;
+  }
+
+  public MoveUndo makeMove(Move move) {
     Piece moving = board.getPiece(move.getFrom().getRow(), move.getFrom().getCol());
     if (moving == null) {
-      return;
+      return null;
     }
+    MoveUndo undo = new MoveUndo(move, toMove, castlingRights.toBits(), enPassantTarget, halfmoveClock,
+        history.capturedWhite.size(), history.capturedBlack.size(), history.minedWhite.size(),
+        history.minedBlack.size(), history.actions.size());
+    minefield.saveLayers(undo);
+    recording = undo;
     Piece captured = board.getPiece(move.getTo().getRow(), move.getTo().getCol());
     updateCastlingRightsForMove(moving, move);
     if (captured != null) {
@@ -213,38 +366,65 @@ public final class GameState {
 
     updateEnPassantTarget(moving, move);
 
-    moveHistory.add(move);
-    redoStack.clear();
+    history.moves.append(move);
+    undoRecords.append(undo);
+    recordAction(move.encode());
     toMove = (toMove == PlayerColor.WHITE) ? PlayerColor.BLACK : PlayerColor.WHITE;
     resolvePendingMines();
+    recording = null;
     updatePositionHistory();
+    return undo;
+  }
+
+  public void unmakeMove(MoveUndo undo) {
+    if (undo == null) {
+      return;
+    }
+    removeLastPositionHash();
+    history.moves.pop();
+    if (!undoRecords.isEmpty()) {
+      undoRecords.pop();
+    }
+    history.actions.truncate(undo.actionCount);
+    history.capturedWhite.truncate(undo.capturedWhiteSize);
+    history.capturedBlack.truncate(undo.capturedBlackSize);
+    history.minedWhite.truncate(undo.minedWhiteSize);
+    history.minedBlack.truncate(undo.minedBlackSize);
+    undo.restoreBoard(board);
+    minefield.restoreLayers(undo);
+    castlingRights.restoreBits(undo.castlingBits);
+    enPassantTarget = undo.enPassantTarget;
+    halfmoveClock = undo.halfmoveClock;
+    toMove = undo.toMove;
   }
 
   public boolean canUndo() {
-    return !moveHistory.isEmpty();
+    return !undoRecords.isEmpty();
   }
 
   public boolean canRedo() {
-    return !redoStack.isEmpty();
+    return !history.redoStack.isEmpty();
   }
 
   public Move undo() {
-    if (moveHistory.isEmpty()) {
+    if (undoRecords.isEmpty()) {
       return null;
     }
-    Move last = moveHistory.remove(moveHistory.size() - 1);
-    redoStack.push(last);
-    toMove = (toMove == PlayerColor.WHITE) ? PlayerColor.BLACK : PlayerColor.WHITE;
-    return last;
+    MoveUndo last = undoRecords.last();
+    unmakeMove(last);
+    history.redoStack.append(last.move);
+    return last.move;
   }
 
   public Move redo() {
-    if (redoStack.isEmpty()) {
+    if (history.redoStack.isEmpty()) {
+      return null;
+    }
+    Move next = history.redoStack.pop();
+    if (makeMove(next) == null) {
+      history.redoStack.append(next);
       return null;
     }
-    Move next = redoStack.pop();
-    moveHistory.add(next);
-    toMove = (toMove == PlayerColor.WHITE) ? PlayerColor.BLACK : PlayerColor.WHITE;
     return next;
   }
 
@@ -252,34 +432,34 @@ public final class GameState {
     Piece capturedEnPassant = null;
     if (move.isEnPassant()) {
       int captureRow = move.getTo().getRow() + (moving.getColor() == PlayerColor.WHITE ? 1 : -1);
-      capturedEnPassant = board.removePiece(captureRow, move.getTo().getCol());
+      capturedEnPassant = removeAt(captureRow, move.getTo().getCol());
     } else if (captured != null) {
-      board.removePiece(move.getTo().getRow(), move.getTo().getCol());
+      removeAt(move.getTo().getRow(), move.getTo().getCol());
     }
-    board.removePiece(move.getFrom().getRow(), move.getFrom().getCol());
+    removeAt(move.getFrom().getRow(), move.getFrom().getCol());
     Piece toPlace = moving;
     if (move.isPromotion()) {
-      toPlace = new Piece(moving.getColor(), move.getPromotion());
+      toPlace = Piece.of(moving.getColor(), move.getPromotion());
     }
-    board.setPiece(move.getTo().getRow(), move.getTo().getCol(), toPlace);
+    placeAt(move.getTo().getRow(), move.getTo().getCol(), toPlace);
     return new CapturedPieces(captured, capturedEnPassant);
   }
 
   private void applyCastlingMove(Piece moving, Move move) {
     int row = moving.getColor() == PlayerColor.WHITE ? 7 : 0;
     if (move.isCastleKingSide()) {
-      board.removePiece(row, 4);
-      board.setPiece(row, 6, moving);
-      Piece rook = board.removePiece(row, 7);
+      removeAt(row, 4);
+      placeAt(row, 6, moving);
+      Piece rook = removeAt(row, 7);
       if (rook != null) {
-        board.setPiece(row, 5, rook);
+        placeAt(row, 5, rook);
       }
     } else {
-      board.removePiece(row, 4);
-      board.setPiece(row, 2, moving);
-      Piece rook = board.removePiece(row, 0);
+      removeAt(row, 4);
+      placeAt(row, 2, moving);
+      Piece rook = removeAt(row, 0);
       if (rook != null) {
-        board.setPiece(row, 3, rook);
+        placeAt(row, 3, rook);
       }
     }
   }
@@ -348,7 +528,7 @@ public final class GameState {
     if (minefield.hasMine(toRow, toCol) && !minefield.isExploded(toRow, toCol)) {
       if (minefield.isArmed(toRow, toCol)) {
         minefield.explode(toRow, toCol);
-        Piece removed = board.removePiece(toRow, toCol);
+        Piece removed = removeAt(toRow, toCol);
         if (removed != null) {
           recordMineDeath(removed);
         }
@@ -362,15 +542,17 @@ public final class GameState {
     }
     if (!minefield.isRevealed(toRow, toCol)) {
       if (minefield.adjacentMines(toRow, toCol) == 0) {
-        minefield.revealFlood(toRow, toCol, moving.getColor());
+        open(toRow, toCol, moving.getColor());
       } else {
         minefield.reveal(toRow, toCol);
       }
     }
-    if (minefield.isRevealed(toRow, toCol) && minefield.adjacentMines(toRow, toCol) > 0) {
+    // Whether a quick-open fires, and what it opens, depends on mines a
+    // hidden layout leaves out, so its search copies never quick-open.
+    if (!layoutHidden && minefield.isRevealed(toRow, toCol) && minefield.adjacentMines(toRow, toCol) > 0) {
       boolean exploded = triggerQuickOpen(toRow, toCol, moving.getColor());
       if (exploded) {
-        Piece removed = board.removePiece(toRow, toCol);
+        Piece removed = removeAt(toRow, toCol);
         if (removed != null) {
           recordMineDeath(removed);
         }
@@ -399,39 +581,43 @@ public final class GameState {
         }
         if (minefield.hasMine(r, c) && !minefield.isExploded(r, c)) {
           minefield.explode(r, c);
-          Piece removed = board.removePiece(r, c);
+          Piece removed = removeAt(r, c);
           if (removed != null) {
             recordMineDeath(removed);
           }
           exploded = true;
         } else {
-          minefield.revealFlood(r, c, moverColor);
+          open(r, c, moverColor);
         }
       }
     }
     return exploded;
   }
 
+  private void open(int row, int col, PlayerColor moverColor) {
+    if (layoutHidden) {
+      // A flood over a layout with the hidden mines left out would open
+      // every mine-free square; the mover only gets to see this one.
+      if (!minefield.hasMine(row, col)) {
+        minefield.reveal(row, col);
+      }
+      return;
+    }
+    minefield.revealFlood(row, col, moverColor);
+  }
+
   private void recordCapture(Piece piece, PlayerColor capturer) {
     if (piece == null) {
       return;
     }
-    if (capturer == PlayerColor.WHITE) {
-      capturedWhite.add(piece);
-    } else {
-      capturedBlack.add(piece);
-    }
+    history.captured(capturer).append(piece);
   }
 
   private void recordMineDeath(Piece piece) {
     if (piece == null) {
       return;
     }
-    if (piece.getColor() == PlayerColor.WHITE) {
-      minedWhite.add(piece);
-    } else {
-      minedBlack.add(piece);
-    }
+    history.mined(piece.getColor()).append(piece);
     halfmoveClock = 0;
   }
 
@@ -455,7 +641,7 @@ public final class GameState {
           && minefield.hasMine(row, col)
           && !minefield.isExploded(row, col)) {
         minefield.explode(row, col);
-        Piece removed = board.removePiece(row, col);
+        Piece removed = removeAt(row, col);
         if (removed != null) {
           recordMineDeath(removed);
         }
@@ -468,74 +654,37 @@ public final class GameState {
   }
 
   public boolean isThreefoldRepetition() {
-    if (positionHistory.isEmpty()) {
+    Long current = history.positions.last();
+    if (current == null) {
       return false;
     }
-    String current = positionHistory.get(positionHistory.size() - 1);
     return positionCounts.getOrDefault(current, 0) >= 3;
   }
 
   public boolean isInsufficientMaterial() {
-    int whiteBishops = 0;
-    int blackBishops = 0;
-    int whiteKnights = 0;
-    int blackKnights = 0;
-    int whiteOther = 0;
-    int blackOther = 0;
-    List<Integer> bishopColors = new ArrayList<>();
-
-    for (int row = 0; row < Board.SIZE; row++) {
-      for (int col = 0; col < Board.SIZE; col++) {
-        Piece piece = board.getPiece(row, col);
-        if (piece == null || piece.getType() == PieceType.KING) {
-          continue;
-        }
-        boolean white = piece.getColor() == PlayerColor.WHITE;
-        switch (piece.getType()) {
-          case PAWN, ROOK, QUEEN -> {
-            if (white) {
-              whiteOther++;
-            } else {
-              blackOther++;
-            }
-          }
-          case BISHOP -> {
-            if (white) {
-              whiteBishops++;
-            } else {
-              blackBishops++;
-            }
-            bishopColors.add((row + col) % 2);
-          }
-          case KNIGHT -> {
-            if (white) {
-              whiteKnights++;
-            } else {
-              blackKnights++;
-            }
-          }
-          default -> {
-          }
-        }
-      }
+    long heavy = 0L;
+    for (PlayerColor color : PlayerColor.values()) {
+      heavy |= board.getBitboard(color, PieceType.PAWN)
+          | board.getBitboard(color, PieceType.ROOK)
+          | board.getBitboard(color, PieceType.QUEEN);
     }
-
-    if (whiteOther > 0 || blackOther > 0) {
+    if (heavy != 0) {
       return false;
     }
-    int totalMinors = whiteBishops + blackBishops + whiteKnights + blackKnights;
+    long bishops = board.getBitboard(PlayerColor.WHITE, PieceType.BISHOP)
+        | board.getBitboard(PlayerColor.BLACK, PieceType.BISHOP);
+    long knights = board.getBitboard(PlayerColor.WHITE, PieceType.KNIGHT)
+        | board.getBitboard(PlayerColor.BLACK, PieceType.KNIGHT);
+    int totalMinors = Long.bitCount(bishops) + Long.bitCount(knights);
     if (totalMinors == 0 || totalMinors == 1) {
       return true;
     }
     if (totalMinors == 2) {
-      if (whiteKnights + blackKnights == 2) {
-        return true;
-      }
-      if (whiteBishops + blackBishops == 2
-          && bishopColors.size() == 2
-          && bishopColors.get(0).equals(bishopColors.get(1))) {
+      if (Long.bitCount(knights) == 2) {
         return true;
       }
+      return Long.bitCount(bishops) == 2
+          && ((bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0);
     }
     return false;
   }
@@ -547,19 +696,41 @@ public final class GameState {
         || isInsufficientMaterial();
   }
 
+  private void recordAction(int action) {
+    history.actions.append(action);
+  }
+
   public void resetPositionHistory() {
-    positionHistory.clear();
+    history.positions.clear();
     positionCounts.clear();
-    addPositionHash(buildPositionHash());
+    addPositionHash(getRepetitionKey());
   }
 
   private void updatePositionHistory() {
-    addPositionHash(buildPositionHash());
+    addPositionHash(getRepetitionKey());
+  }
+
+  // A real game never moves its mines, but search positions swap in a
+  // different sampled layout between iterations, and a player's view only
+  // carries its own flags. Leaving mines and flags out keeps the recorded
+  // history comparable across layouts and between the two views.
+  private long getRepetitionKey() {
+    return getPositionKey() ^ minefield.getHiddenKey();
   }
 
-  private void addPositionHash(String hash) {
-    positionHistory.add(hash);
-    positionCounts.put(hash, positionCounts.getOrDefault(hash, 0) + 1);
+  private void addPositionHash(long key) {
+    history.positions.append(key);
+    positionCounts.merge(key, 1, Integer::sum);
+  }
+
+  private void removeLastPositionHash() {
+    Long key = history.positions.pop();
+    int count = positionCounts.getOrDefault(key, 0) - 1;
+    if (count <= 0) {
+      positionCounts.remove(key);
+    } else {
+      positionCounts.put(key, count);
+    }
   }
 
   private void updateHalfmoveClock(Piece moving, boolean capturedAny, boolean enPassantCaptured, boolean exploded) {
@@ -570,65 +741,19 @@ public final class GameState {
     halfmoveClock++;
   }
 
-  private String buildPositionHash() {
-    StringBuilder sb = new StringBuilder();
-    for (int row = 0; row < Board.SIZE; row++) {
-      for (int col = 0; col < Board.SIZE; col++) {
-        Piece piece = board.getPiece(row, col);
-        if (piece == null) {
-          sb.append('.');
-          continue;
-        }
-        char code = switch (piece.getType()) {
-          case KING -> 'k';
-          case QUEEN -> 'q';
-          case ROOK -> 'r';
-          case BISHOP -> 'b';
-          case KNIGHT -> 'n';
-          case PAWN -> 'p';
-        };
-        sb.append(piece.getColor() == PlayerColor.WHITE ? Character.toUpperCase(code) : code);
-      }
+  private Piece removeAt(int row, int col) {
+    Piece removed = board.removePiece(row, col);
+    if (recording != null && removed != null) {
+      recording.recordSquare(Board.index(row, col), removed);
     }
-    sb.append('|');
-    sb.append(toMove == PlayerColor.WHITE ? 'w' : 'b');
-    sb.append('|');
-    sb.append(castlingRights.canWhiteKingSide() ? 'K' : '-');
-    sb.append(castlingRights.canWhiteQueenSide() ? 'Q' : '-');
-    sb.append(castlingRights.canBlackKingSide() ? 'k' : '-');
-    sb.append(castlingRights.canBlackQueenSide() ? 'q' : '-');
-    sb.append('|');
-    if (enPassantTarget == null) {
-      sb.append("--");
-    } else {
-      sb.append(enPassantTarget.getRow()).append(enPassantTarget.getCol());
-    }
-    sb.append('|');
-    appendBoolGrid(sb, minefield.copyMines());
-    sb.append('|');
-    appendBoolGrid(sb, minefield.copyRevealed());
-    sb.append('|');
-    appendBoolGrid(sb, minefield.copyExploded());
-    sb.append('|');
-    appendBoolGrid(sb, minefield.copyFlaggedWhite());
-    sb.append('|');
-    appendBoolGrid(sb, minefield.copyFlaggedBlack());
-    sb.append('|');
-    int[][] armed = minefield.copyArmedTurns();
-    for (int row = 0; row < Board.SIZE; row++) {
-      for (int col = 0; col < Board.SIZE; col++) {
-        sb.append(armed[row][col]);
-      }
-    }
-    return sb.toString();
+    return removed;
   }
 
-  private void appendBoolGrid(StringBuilder sb, boolean[][] grid) {
-    for (int row = 0; row < Board.SIZE; row++) {
-      for (int col = 0; col < Board.SIZE; col++) {
-        sb.append(grid[row][col] ? '1' : '0');
-      }
+  private void placeAt(int row, int col, Piece piece) {
+    if (recording != null) {
+      recording.recordSquare(Board.index(row, col), board.getPiece(row, col));
     }
+    board.setPiece(row, col, piece);
   }
 
   private static final class CapturedPieces {
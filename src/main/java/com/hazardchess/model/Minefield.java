@@ -2,13 +2,17 @@ package com.hazardchess.model;
 
 public final class Minefield {
   public static final int SIZE = 8;
-  private final boolean[][] mines = new boolean[SIZE][SIZE];
-  private final boolean[][] revealed = new boolean[SIZE][SIZE];
-  private final boolean[][] exploded = new boolean[SIZE][SIZE];
-  private final boolean[][] flaggedWhite = new boolean[SIZE][SIZE];
-  private final boolean[][] flaggedBlack = new boolean[SIZE][SIZE];
-  private final int[][] adjacentCounts = new int[SIZE][SIZE];
-  private final int[][] armedTurns = new int[SIZE][SIZE];
+  private static final int NIBBLES_PER_WORD = 16;
+
+  private long mines;
+  private long revealed;
+  private long exploded;
+  private long flaggedWhite;
+  private long flaggedBlack;
+  private long armed;
+  private final long[] armedTurns = new long[Board.SQUARES / NIBBLES_PER_WORD];
+  private long key;
+  private long hiddenKey;
 
   public void generate(int mineCount, java.util.Random random, boolean[][] reserved) {
     clear();
@@ -16,143 +20,142 @@ public final class Minefield {
     while (placed < mineCount) {
       int row = random.nextInt(SIZE);
       int col = random.nextInt(SIZE);
-      if (mines[row][col]) {
+      if (hasMine(row, col)) {
         continue;
       }
       if (reserved != null && reserved[row][col]) {
         continue;
       }
-      mines[row][col] = true;
+      setMines(mines | bit(row, col));
       placed++;
     }
-    computeAdjacentCounts();
   }
 
   public boolean hasMine(int row, int col) {
-    return mines[row][col];
+    return (mines & bit(row, col)) != 0;
+  }
+
+  public void setMine(int row, int col, boolean mine) {
+    setMines(mine ? mines | bit(row, col) : mines & ~bit(row, col));
   }
 
   public boolean isRevealed(int row, int col) {
-    return revealed[row][col];
+    return (revealed & bit(row, col)) != 0;
   }
 
   public boolean isExploded(int row, int col) {
-    return exploded[row][col];
+    return (exploded & bit(row, col)) != 0;
   }
 
   public int adjacentMines(int row, int col) {
-    return adjacentCounts[row][col];
+    return Long.bitCount(Attacks.king(Board.index(row, col)) & mines);
   }
 
   public void reveal(int row, int col) {
-    revealed[row][col] = true;
-    flaggedWhite[row][col] = false;
-    flaggedBlack[row][col] = false;
-    armedTurns[row][col] = 0;
+    long bit = bit(row, col);
+    setRevealed(revealed | bit);
+    clearFlagsAndTimers(bit);
   }
 
   public void explode(int row, int col) {
-    exploded[row][col] = true;
-    revealed[row][col] = true;
-    flaggedWhite[row][col] = false;
-    flaggedBlack[row][col] = false;
-    armedTurns[row][col] = 0;
+    long bit = bit(row, col);
+    setExploded(exploded | bit);
+    setRevealed(revealed | bit);
+    clearFlagsAndTimers(bit);
   }
 
   public boolean isFlagged(int row, int col, PlayerColor color) {
-    return color == PlayerColor.WHITE ? flaggedWhite[row][col] : flaggedBlack[row][col];
+    return (getFlaggedMask(color) & bit(row, col)) != 0;
   }
 
   public boolean isFlaggedAny(int row, int col) {
-    return flaggedWhite[row][col] || flaggedBlack[row][col];
+    return ((flaggedWhite | flaggedBlack) & bit(row, col)) != 0;
   }
 
   public boolean isArmed(int row, int col) {
-    return armedTurns[row][col] > 0;
+    return (armed & bit(row, col)) != 0;
   }
 
   public int getArmedTurns(int row, int col) {
-    return armedTurns[row][col];
+    return armedTurns(Board.index(row, col));
   }
 
   public void armMine(int row, int col) {
-    if (!mines[row][col] || exploded[row][col]) {
+    long bit = bit(row, col);
+    if ((mines & bit) == 0 || (exploded & bit) != 0) {
       return;
     }
-    if (armedTurns[row][col] == 0) {
-      armedTurns[row][col] = 2;
+    if ((armed & bit) == 0) {
+      setArmedTurns(Board.index(row, col), 2);
     }
   }
 
   public void tickArmed() {
-    for (int row = 0; row < SIZE; row++) {
-      for (int col = 0; col < SIZE; col++) {
-        if (armedTurns[row][col] > 0) {
-          armedTurns[row][col]--;
-        }
-      }
+    long pending = armed;
+    while (pending != 0) {
+      int square = Long.numberOfTrailingZeros(pending);
+      pending &= pending - 1;
+      setArmedTurns(square, armedTurns(square) - 1);
     }
   }
 
   public void toggleFlag(int row, int col, PlayerColor color) {
-    if (revealed[row][col] && !exploded[row][col]) {
+    long bit = bit(row, col);
+    if ((revealed & bit) != 0 && (exploded & bit) == 0) {
       return;
     }
-    if (color == PlayerColor.WHITE) {
-      flaggedWhite[row][col] = !flaggedWhite[row][col];
-    } else {
-      flaggedBlack[row][col] = !flaggedBlack[row][col];
-    }
+    setFlagged(color, getFlaggedMask(color) ^ bit);
   }
 
   public int countFlagsAround(int row, int col, PlayerColor color) {
-    int count = 0;
-    for (int dr = -1; dr <= 1; dr++) {
-      for (int dc = -1; dc <= 1; dc++) {
-        if (dr == 0 && dc == 0) {
-          continue;
-        }
-        int r = row + dr;
-        int c = col + dc;
-        if (r >= 0 && r < SIZE && c >= 0 && c < SIZE && isFlagged(r, c, color)) {
-          count++;
-        }
-      }
-    }
-    return count;
+    return Long.bitCount(Attacks.king(Board.index(row, col)) & getFlaggedMask(color));
   }
 
-  public void revealFlood(int startRow, int startCol, PlayerColor color) {
-    if (!isInside(startRow, startCol) || revealed[startRow][startCol] || mines[startRow][startCol]) {
-      return;
+  public long revealFlood(int startRow, int startCol, PlayerColor color) {
+    if (!isInside(startRow, startCol) || isRevealed(startRow, startCol) || hasMine(startRow, startCol)) {
+      return 0L;
     }
-    java.util.ArrayDeque<int[]> queue = new java.util.ArrayDeque<>();
-    queue.add(new int[]{startRow, startCol});
-    while (!queue.isEmpty()) {
-      int[] cell = queue.removeFirst();
-      int row = cell[0];
-      int col = cell[1];
-      boolean isStart = row == startRow && col == startCol;
-      if (revealed[row][col] || mines[row][col] || (!isStart && isFlagged(row, col, color))) {
-        continue;
-      }
-      reveal(row, col);
-      if (adjacentCounts[row][col] != 0) {
-        continue;
-      }
-      for (int dr = -1; dr <= 1; dr++) {
-        for (int dc = -1; dc <= 1; dc++) {
-          if (dr == 0 && dc == 0) {
-            continue;
-          }
-          int r = row + dr;
-          int c = col + dc;
-          if (isInside(r, c) && !revealed[r][c] && !mines[r][c] && !isFlagged(r, c, color)) {
-            queue.add(new int[]{r, c});
-          }
-        }
-      }
+    long flags = getFlaggedMask(color);
+    long blocked = revealed | mines | flags;
+    long opened = 0L;
+    long frontier = bit(startRow, startCol);
+    while (frontier != 0) {
+      opened |= frontier;
+      long spreading = frontier & ~(neighbours(mines) | mines);
+      frontier = neighbours(spreading) & ~blocked & ~opened;
     }
+    setRevealed(revealed | opened);
+    clearFlagsAndTimers(opened);
+    return opened;
+  }
+
+  public long getMineMask() {
+    return mines;
+  }
+
+  public long getRevealedMask() {
+    return revealed;
+  }
+
+  public long getExplodedMask() {
+    return exploded;
+  }
+
+  public long getFlaggedMask(PlayerColor color) {
+    return color == PlayerColor.WHITE ? flaggedWhite : flaggedBlack;
+  }
+
+  public long getArmedMask() {
+    return armed;
+  }
+
+  public static long neighbours(long mask) {
+    long notA = 0xFEFEFEFEFEFEFEFEL;
+    long notH = 0x7F7F7F7F7F7F7F7FL;
+    long west = (mask >>> 1) & notH;
+    long east = (mask << 1) & notA;
+    long line = mask | west | east;
+    return (line << SIZE) | (line >>> SIZE) | west | east;
   }
 
   private boolean isInside(int row, int col) {
@@ -160,29 +163,32 @@ public final class Minefield {
   }
 
   public boolean[][] copyMines() {
-    return copy(mines);
+    return toGrid(mines);
   }
 
   public boolean[][] copyRevealed() {
-    return copy(revealed);
+    return toGrid(revealed);
   }
 
   public boolean[][] copyExploded() {
-    return copy(exploded);
+    return toGrid(exploded);
   }
 
   public boolean[][] copyFlaggedWhite() {
-    return copy(flaggedWhite);
+    return toGrid(flaggedWhite);
   }
 
   public boolean[][] copyFlaggedBlack() {
-    return copy(flaggedBlack);
+    return toGrid(flaggedBlack);
   }
 
   public int[][] copyArmedTurns() {
     int[][] clone = new int[SIZE][SIZE];
-    for (int row = 0; row < SIZE; row++) {
-      System.arraycopy(armedTurns[row], 0, clone[row], 0, SIZE);
+    long pending = armed;
+    while (pending != 0) {
+      int square = Long.numberOfTrailingZeros(pending);
+      pending &= pending - 1;
+      clone[Board.rowOf(square)][Board.colOf(square)] = armedTurns(square);
     }
     return clone;
   }
@@ -193,25 +199,104 @@ public final class Minefield {
         || !isValid(flaggedWhite) || !isValid(flaggedBlack) || !isValid(armedTurns)) {
       return;
     }
+    setMines(toMask(mines));
+    setRevealed(toMask(revealed));
+    setExploded(toMask(exploded));
+    setFlagged(PlayerColor.WHITE, toMask(flaggedWhite));
+    setFlagged(PlayerColor.BLACK, toMask(flaggedBlack));
     for (int row = 0; row < SIZE; row++) {
       for (int col = 0; col < SIZE; col++) {
-        this.mines[row][col] = mines[row][col];
-        this.revealed[row][col] = revealed[row][col];
-        this.exploded[row][col] = exploded[row][col];
-        this.flaggedWhite[row][col] = flaggedWhite[row][col];
-        this.flaggedBlack[row][col] = flaggedBlack[row][col];
-        this.armedTurns[row][col] = armedTurns[row][col];
+        setArmedTurns(Board.index(row, col), armedTurns[row][col]);
       }
     }
-    computeAdjacentCounts();
   }
 
-  private boolean[][] copy(boolean[][] source) {
-    boolean[][] clone = new boolean[SIZE][SIZE];
+  void copyFrom(Minefield other) {
+    mines = other.mines;
+    revealed = other.revealed;
+    exploded = other.exploded;
+    flaggedWhite = other.flaggedWhite;
+    flaggedBlack = other.flaggedBlack;
+    armed = other.armed;
+    System.arraycopy(other.armedTurns, 0, armedTurns, 0, armedTurns.length);
+    key = other.key;
+    hiddenKey = other.hiddenKey;
+  }
+
+  void saveLayers(MoveUndo undo) {
+    undo.revealed = revealed;
+    undo.exploded = exploded;
+    undo.flaggedWhite = flaggedWhite;
+    undo.flaggedBlack = flaggedBlack;
+    undo.armedLow = getArmedPlane(1);
+    undo.armedHigh = getArmedPlane(2);
+  }
+
+  long getArmedPlane(int turnBit) {
+    long plane = 0L;
+    long pending = armed;
+    while (pending != 0) {
+      int square = Long.numberOfTrailingZeros(pending);
+      pending &= pending - 1;
+      if ((armedTurns(square) & turnBit) != 0) {
+        plane |= 1L << square;
+      }
+    }
+    return plane;
+  }
+
+  void restoreLayers(MoveUndo undo) {
+    setRevealed(undo.revealed);
+    setExploded(undo.exploded);
+    setFlagged(PlayerColor.WHITE, undo.flaggedWhite);
+    setFlagged(PlayerColor.BLACK, undo.flaggedBlack);
+    restoreArmed(undo.armedLow, undo.armedHigh);
+  }
+
+  public void setLayers(long mines, long revealed, long exploded, long flaggedWhite, long flaggedBlack,
+                        long armedLow, long armedHigh) {
+    setMines(mines);
+    setRevealed(revealed);
+    setExploded(exploded);
+    setFlagged(PlayerColor.WHITE, flaggedWhite);
+    setFlagged(PlayerColor.BLACK, flaggedBlack);
+    restoreArmed(armedLow, armedHigh);
+  }
+
+  private void restoreArmed(long armedLow, long armedHigh) {
+    long touched = armed | armedLow | armedHigh;
+    while (touched != 0) {
+      int square = Long.numberOfTrailingZeros(touched);
+      touched &= touched - 1;
+      long bit = 1L << square;
+      setArmedTurns(square, ((armedLow & bit) != 0 ? 1 : 0) | ((armedHigh & bit) != 0 ? 2 : 0));
+    }
+  }
+
+  private static long bit(int row, int col) {
+    return 1L << Board.index(row, col);
+  }
+
+  private static long toMask(boolean[][] source) {
+    long mask = 0L;
     for (int row = 0; row < SIZE; row++) {
-      System.arraycopy(source[row], 0, clone[row], 0, SIZE);
+      for (int col = 0; col < SIZE; col++) {
+        if (source[row][col]) {
+          mask |= bit(row, col);
+        }
+      }
     }
-    return clone;
+    return mask;
+  }
+
+  private static boolean[][] toGrid(long mask) {
+    boolean[][] grid = new boolean[SIZE][SIZE];
+    while (mask != 0) {
+      int square = Long.numberOfTrailingZeros(mask);
+      mask &= mask - 1;
+      grid[Board.rowOf(square)][Board.colOf(square)] = true;
+    }
+    return grid;
   }
 
   private boolean isValid(boolean[][] source) {
@@ -238,42 +323,97 @@ public final class Minefield {
     return true;
   }
 
-  private void computeAdjacentCounts() {
-    for (int row = 0; row < SIZE; row++) {
-      for (int col = 0; col < SIZE; col++) {
-        adjacentCounts[row][col] = countAdjacent(row, col);
-      }
+  private void clear() {
+    mines = 0L;
+    revealed = 0L;
+    exploded = 0L;
+    flaggedWhite = 0L;
+    flaggedBlack = 0L;
+    armed = 0L;
+    java.util.Arrays.fill(armedTurns, 0L);
+    key = 0L;
+    hiddenKey = 0L;
+  }
+
+  long getKey() {
+    return key;
+  }
+
+  long getHiddenKey() {
+    return hiddenKey;
+  }
+
+  private void clearFlagsAndTimers(long mask) {
+    setFlagged(PlayerColor.WHITE, flaggedWhite & ~mask);
+    setFlagged(PlayerColor.BLACK, flaggedBlack & ~mask);
+    long timers = armed & mask;
+    while (timers != 0) {
+      int square = Long.numberOfTrailingZeros(timers);
+      timers &= timers - 1;
+      setArmedTurns(square, 0);
     }
   }
 
-  private int countAdjacent(int row, int col) {
-    int count = 0;
-    for (int dr = -1; dr <= 1; dr++) {
-      for (int dc = -1; dc <= 1; dc++) {
-        if (dr == 0 && dc == 0) {
-          continue;
-        }
-        int r = row + dr;
-        int c = col + dc;
-        if (r >= 0 && r < SIZE && c >= 0 && c < SIZE && mines[r][c]) {
-          count++;
-        }
-      }
+  private int armedTurns(int square) {
+    return (int) (armedTurns[square / NIBBLES_PER_WORD] >>> nibbleShift(square)) & 0xF;
+  }
+
+  private static int nibbleShift(int square) {
+    return (square % NIBBLES_PER_WORD) * 4;
+  }
+
+  private void setMines(long value) {
+    long delta = keyDelta(Zobrist.MINES, mines ^ value);
+    key ^= delta;
+    hiddenKey ^= delta;
+    mines = value;
+  }
+
+  private void setRevealed(long value) {
+    key ^= keyDelta(Zobrist.REVEALED, revealed ^ value);
+    revealed = value;
+  }
+
+  private void setExploded(long value) {
+    key ^= keyDelta(Zobrist.EXPLODED, exploded ^ value);
+    exploded = value;
+  }
+
+  private void setFlagged(PlayerColor color, long value) {
+    long delta;
+    if (color == PlayerColor.WHITE) {
+      delta = keyDelta(Zobrist.FLAGGED_WHITE, flaggedWhite ^ value);
+      flaggedWhite = value;
+    } else {
+      delta = keyDelta(Zobrist.FLAGGED_BLACK, flaggedBlack ^ value);
+      flaggedBlack = value;
     }
-    return count;
+    key ^= delta;
+    hiddenKey ^= delta;
   }
 
-  private void clear() {
-    for (int row = 0; row < SIZE; row++) {
-      for (int col = 0; col < SIZE; col++) {
-        mines[row][col] = false;
-        revealed[row][col] = false;
-        exploded[row][col] = false;
-        flaggedWhite[row][col] = false;
-        flaggedBlack[row][col] = false;
-        armedTurns[row][col] = 0;
-        adjacentCounts[row][col] = 0;
-      }
+  private void setArmedTurns(int square, int turns) {
+    int previous = armedTurns(square);
+    if (previous == turns) {
+      return;
+    }
+    key ^= Zobrist.armed(previous, square) ^ Zobrist.armed(turns, square);
+    int word = square / NIBBLES_PER_WORD;
+    int shift = nibbleShift(square);
+    armedTurns[word] = (armedTurns[word] & ~(0xFL << shift)) | ((long) (turns & 0xF) << shift);
+    if (turns > 0) {
+      armed |= 1L << square;
+    } else {
+      armed &= ~(1L << square);
+    }
+  }
+
+  private static long keyDelta(long[] keys, long changed) {
+    long delta = 0L;
+    while (changed != 0) {
+      delta ^= keys[Long.numberOfTrailingZeros(changed)];
+      changed &= changed - 1;
     }
+    return delta;
   }
 }
@@ -49,4 +49,43 @@ public final class Move {
   public boolean isPromotion() {
     return promotion != null;
   }
+
+  public int encode() {
+    int code;
+    if (castleKingSide) {
+      code = 1;
+    } else if (castleQueenSide) {
+      code = 2;
+    } else if (enPassant) {
+      code = 3;
+    } else if (promotion != null) {
+      code = switch (promotion) {
+        case QUEEN -> 4;
+        case ROOK -> 5;
+        case BISHOP -> 6;
+        case KNIGHT -> 7;
+        default -> throw new IllegalStateException("Cannot promote to " + promotion);
+      };
+    } else {
+      code = 0;
+    }
+    return Board.index(from.getRow(), from.getCol())
+        | Board.index(to.getRow(), to.getCol()) << 6
+        | code << 12;
+  }
+
+  public static Move decode(int encoded) {
+    int from = encoded & 63;
+    int to = (encoded >>> 6) & 63;
+    int code = (encoded >>> 12) & 15;
+    PieceType promotion = switch (code) {
+      case 4 -> PieceType.QUEEN;
+      case 5 -> PieceType.ROOK;
+      case 6 -> PieceType.BISHOP;
+      case 7 -> PieceType.KNIGHT;
+      default -> null;
+    };
+    return new Move(new Square(Board.rowOf(from), Board.colOf(from)), new Square(Board.rowOf(to), Board.colOf(to)),
+        code == 1, code == 2, code == 3, promotion);
+  }
 }
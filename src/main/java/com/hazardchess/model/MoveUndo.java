@@ -0,0 +1,60 @@
+package com.hazardchess.model;
+
+public final class MoveUndo {
+  private static final int INITIAL_CHANGES = 8;
+
+  final Move move;
+  final PlayerColor toMove;
+  final int castlingBits;
+  final Square enPassantTarget;
+  final int halfmoveClock;
+  final int capturedWhiteSize;
+  final int capturedBlackSize;
+  final int minedWhiteSize;
+  final int minedBlackSize;
+  final int actionCount;
+  long revealed;
+  long exploded;
+  long flaggedWhite;
+  long flaggedBlack;
+  long armedLow;
+  long armedHigh;
+  private int[] changedSquares = new int[INITIAL_CHANGES];
+  private Piece[] previousPieces = new Piece[INITIAL_CHANGES];
+  private int changeCount;
+
+  MoveUndo(Move move, PlayerColor toMove, int castlingBits, Square enPassantTarget, int halfmoveClock,
+           int capturedWhiteSize, int capturedBlackSize, int minedWhiteSize, int minedBlackSize, int actionCount) {
+    this.move = move;
+    this.toMove = toMove;
+    this.castlingBits = castlingBits;
+    this.enPassantTarget = enPassantTarget;
+    this.halfmoveClock = halfmoveClock;
+    this.capturedWhiteSize = capturedWhiteSize;
+    this.capturedBlackSize = capturedBlackSize;
+    this.minedWhiteSize = minedWhiteSize;
+    this.minedBlackSize = minedBlackSize;
+    this.actionCount = actionCount;
+  }
+
+  public Move getMove() {
+    return move;
+  }
+
+  void recordSquare(int index, Piece previous) {
+    if (changeCount == changedSquares.length) {
+      changedSquares = java.util.Arrays.copyOf(changedSquares, changeCount * 2);
+      previousPieces = java.util.Arrays.copyOf(previousPieces, changeCount * 2);
+    }
+    changedSquares[changeCount] = index;
+    previousPieces[changeCount] = previous;
+    changeCount++;
+  }
+
+  void restoreBoard(Board board) {
+    for (int i = changeCount - 1; i >= 0; i--) {
+      int index = changedSquares[i];
+      board.setPiece(Board.rowOf(index), Board.colOf(index), previousPieces[i]);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.hazardchess.model;
+
+import java.util.List;
+
+// An immutable copy of a GameState taken in O(1): the board and minefield
+// are a handful of longs and the histories share GameState's chunks. It is
+// a value to hand to another thread, not something to play moves on;
+// toGameState() turns it back into a live game.
+public final class PersistentGameState {
+  private final long[] pieces;
+  private final long mines;
+  private final long revealed;
+  private final long exploded;
+  private final long flaggedWhite;
+  private final long flaggedBlack;
+  private final long armedLow;
+  private final long armedHigh;
+  private final PlayerColor toMove;
+  private final int castlingBits;
+  private final Square enPassantTarget;
+  private final int halfmoveClock;
+  private final long elapsedSeconds;
+  private final boolean botEnabled;
+  private final boolean layoutHidden;
+  private final Long mineSeed;
+  private final int mineCount;
+  final GameHistory history = new GameHistory();
+
+  PersistentGameState(GameState state, GameHistory history, boolean layoutHidden) {
+    Board board = state.getBoard();
+    Minefield minefield = state.getMinefield();
+    pieces = new long[PlayerColor.values().length * PieceType.values().length];
+    for (PlayerColor color : PlayerColor.values()) {
+      for (PieceType type : PieceType.values()) {
+        pieces[kind(color, type)] = board.getBitboard(color, type);
+      }
+    }
+    mines = minefield.getMineMask();
+    revealed = minefield.getRevealedMask();
+    exploded = minefield.getExplodedMask();
+    flaggedWhite = minefield.getFlaggedMask(PlayerColor.WHITE);
+    flaggedBlack = minefield.getFlaggedMask(PlayerColor.BLACK);
+    armedLow = minefield.getArmedPlane(1);
+    armedHigh = minefield.getArmedPlane(2);
+    toMove = state.getToMove();
+    castlingBits = state.getCastlingRights().toBits();
+    enPassantTarget = state.getEnPassantTarget();
+    halfmoveClock = state.getHalfmoveClock();
+    elapsedSeconds = state.getElapsedSeconds();
+    botEnabled = state.isBotEnabled();
+    this.layoutHidden = layoutHidden;
+    mineSeed = state.getMineSeed();
+    mineCount = state.getMineCount();
+    this.history.copyFrom(history);
+  }
+
+  public GameState toGameState() {
+    return new GameState(this);
+  }
+
+  public long getBitboard(PlayerColor color, PieceType type) {
+    return pieces[kind(color, type)];
+  }
+
+  public long getMineMask() {
+    return mines;
+  }
+
+  public long getRevealedMask() {
+    return revealed;
+  }
+
+  public long getExplodedMask() {
+    return exploded;
+  }
+
+  public long getFlaggedMask(PlayerColor color) {
+    return color == PlayerColor.WHITE ? flaggedWhite : flaggedBlack;
+  }
+
+  public long getArmedMask() {
+    return armedLow | armedHigh;
+  }
+
+  long getArmedLow() {
+    return armedLow;
+  }
+
+  long getArmedHigh() {
+    return armedHigh;
+  }
+
+  int getCastlingBits() {
+    return castlingBits;
+  }
+
+  boolean isLayoutHidden() {
+    return layoutHidden;
+  }
+
+  public PlayerColor getToMove() {
+    return toMove;
+  }
+
+  public Square getEnPassantTarget() {
+    return enPassantTarget;
+  }
+
+  public int getHalfmoveClock() {
+    return halfmoveClock;
+  }
+
+  public long getElapsedSeconds() {
+    return elapsedSeconds;
+  }
+
+  public boolean isBotEnabled() {
+    return botEnabled;
+  }
+
+  public Long getMineSeed() {
+    return mineSeed;
+  }
+
+  public int getMineCount() {
+    return mineCount;
+  }
+
+  public int[] getActions() {
+    return history.actionArray();
+  }
+
+  public List<Move> getMoveHistory() {
+    return history.moves.toList();
+  }
+
+  private static int kind(PlayerColor color, PieceType type) {
+    return color.ordinal() * PieceType.values().length + type.ordinal();
+  }
+}
@@ -1,6 +1,17 @@
 package com.hazardchess.model;
 
 public final class Piece {
+  private static final int KINDS = PieceType.values().length;
+  private static final Piece[] SHARED = new Piece[PlayerColor.values().length * KINDS];
+
+  static {
+    for (PlayerColor color : PlayerColor.values()) {
+      for (PieceType type : PieceType.values()) {
+        SHARED[color.ordinal() * KINDS + type.ordinal()] = new Piece(color, type);
+      }
+    }
+  }
+
   private final PlayerColor color;
   private final PieceType type;
 
@@ -9,6 +20,10 @@ public final class Piece {
     this.type = type;
   }
 
+  public static Piece of(PlayerColor color, PieceType type) {
+    return SHARED[color.ordinal() * KINDS + type.ordinal()];
+  }
+
   public PlayerColor getColor() {
     return color;
   }
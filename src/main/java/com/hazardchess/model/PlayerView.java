@@ -0,0 +1,172 @@
+package com.hazardchess.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class PlayerView {
+  private static final byte NO_CLUE = -1;
+
+  private final PlayerColor perspective;
+  private final PlayerColor toMove;
+  private final Board board;
+  private final int castlingBits;
+  private final Square enPassantTarget;
+  private final int halfmoveClock;
+  private final long revealed;
+  private final long exploded;
+  private final long armedLow;
+  private final long armedHigh;
+  private final long flags;
+  private final long knownMines;
+  private final int mineCount;
+  private final byte[] clues;
+  private final long[] positionKeys;
+
+  private PlayerView(PlayerView source, long flags) {
+    this.perspective = source.perspective;
+    this.toMove = source.toMove;
+    this.board = source.board;
+    this.castlingBits = source.castlingBits;
+    this.enPassantTarget = source.enPassantTarget;
+    this.halfmoveClock = source.halfmoveClock;
+    this.revealed = source.revealed;
+    this.exploded = source.exploded;
+    this.armedLow = source.armedLow;
+    this.armedHigh = source.armedHigh;
+    this.flags = flags & ~(source.revealed & ~source.exploded);
+    this.knownMines = source.knownMines;
+    this.mineCount = source.mineCount;
+    this.clues = source.clues;
+    this.positionKeys = source.positionKeys;
+  }
+
+  private PlayerView(GameState state, PlayerColor perspective) {
+    Minefield minefield = state.getMinefield();
+    this.perspective = perspective;
+    this.toMove = state.getToMove();
+    this.board = state.getBoard().copy();
+    this.castlingBits = state.getCastlingRights().toBits();
+    this.enPassantTarget = state.getEnPassantTarget();
+    this.halfmoveClock = state.getHalfmoveClock();
+    this.revealed = minefield.getRevealedMask();
+    this.exploded = minefield.getExplodedMask();
+    this.flags = minefield.getFlaggedMask(perspective);
+    this.knownMines = minefield.getMineMask() & (exploded | minefield.getArmedMask());
+    this.mineCount = Long.bitCount(minefield.getMineMask());
+    long low = 0L;
+    long high = 0L;
+    for (long pending = minefield.getArmedMask(); pending != 0; pending &= pending - 1) {
+      int square = Long.numberOfTrailingZeros(pending);
+      int turns = minefield.getArmedTurns(Board.rowOf(square), Board.colOf(square));
+      if ((turns & 1) != 0) {
+        low |= 1L << square;
+      }
+      if ((turns & 2) != 0) {
+        high |= 1L << square;
+      }
+    }
+    this.armedLow = low;
+    this.armedHigh = high;
+    this.clues = new byte[Board.SQUARES];
+    Arrays.fill(clues, NO_CLUE);
+    for (long pending = revealed & ~exploded; pending != 0; pending &= pending - 1) {
+      int square = Long.numberOfTrailingZeros(pending);
+      clues[square] = (byte) minefield.adjacentMines(Board.rowOf(square), Board.colOf(square));
+    }
+    List<Long> history = state.getPositionHistory();
+    this.positionKeys = new long[history.size()];
+    for (int i = 0; i < positionKeys.length; i++) {
+      positionKeys[i] = history.get(i);
+    }
+  }
+
+  public static PlayerView of(GameState state, PlayerColor perspective) {
+    return new PlayerView(state, perspective);
+  }
+
+  public PlayerColor getPerspective() {
+    return perspective;
+  }
+
+  public PlayerColor getToMove() {
+    return toMove;
+  }
+
+  public Piece getPiece(int row, int col) {
+    return board.getPiece(row, col);
+  }
+
+  public boolean isRevealed(int row, int col) {
+    return (revealed & (1L << Board.index(row, col))) != 0;
+  }
+
+  public int getArmedTurns(int row, int col) {
+    long bit = 1L << Board.index(row, col);
+    return ((armedLow & bit) != 0 ? 1 : 0) | ((armedHigh & bit) != 0 ? 2 : 0);
+  }
+
+  public int getClue(int square) {
+    return clues[square];
+  }
+
+  public long getRevealedMask() {
+    return revealed;
+  }
+
+  public long getExplodedMask() {
+    return exploded;
+  }
+
+  public long getArmedMask() {
+    return armedLow | armedHigh;
+  }
+
+  public long getFlaggedMask() {
+    return flags;
+  }
+
+  public long getKnownMineMask() {
+    return knownMines;
+  }
+
+  public long getUnknownMask() {
+    return ~(revealed | knownMines);
+  }
+
+  public int getMineCount() {
+    return mineCount;
+  }
+
+  public int getHiddenMineCount() {
+    return mineCount - Long.bitCount(knownMines);
+  }
+
+  public PlayerView withFlags(long flags) {
+    return flags == this.flags ? this : new PlayerView(this, flags);
+  }
+
+  public GameState withoutHiddenMines() {
+    GameState state = determinize(0L);
+    state.hideLayout();
+    return state;
+  }
+
+  public GameState determinize(long hiddenMines) {
+    GameState state = new GameState(board.copy());
+    long white = perspective == PlayerColor.WHITE ? flags : 0L;
+    long black = perspective == PlayerColor.BLACK ? flags : 0L;
+    state.getMinefield().setLayers(knownMines | (hiddenMines & getUnknownMask()), revealed, exploded,
+        white, black, armedLow, armedHigh);
+    state.getCastlingRights().restoreBits(castlingBits);
+    state.setEnPassantTarget(enPassantTarget);
+    state.setHalfmoveClock(halfmoveClock);
+    state.setToMove(toMove);
+    List<Long> history = new ArrayList<>(positionKeys.length);
+    for (long key : positionKeys) {
+      history.add(key);
+    }
+    state.setPositionHistory(history);
+    return state;
+  }
+}
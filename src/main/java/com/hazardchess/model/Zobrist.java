@@ -0,0 +1,53 @@
+package com.hazardchess.model;
+
+import java.util.SplittableRandom;
+
+final class Zobrist {
+  static final int ARMED_LEVELS = 16;
+
+  private static final long SEED = 0x5A0B1A57C4E55L;
+
+  static final long[][] PIECES = new long[PlayerColor.values().length * PieceType.values().length][Board.SQUARES];
+  static final long[] MINES = new long[Board.SQUARES];
+  static final long[] REVEALED = new long[Board.SQUARES];
+  static final long[] EXPLODED = new long[Board.SQUARES];
+  static final long[] FLAGGED_WHITE = new long[Board.SQUARES];
+  static final long[] FLAGGED_BLACK = new long[Board.SQUARES];
+  static final long[][] ARMED = new long[ARMED_LEVELS][Board.SQUARES];
+  static final long[] CASTLING = new long[16];
+  static final long[] EN_PASSANT_FILE = new long[Board.SIZE];
+  static final long BLACK_TO_MOVE;
+
+  static {
+    SplittableRandom random = new SplittableRandom(SEED);
+    for (long[] table : PIECES) {
+      fill(table, random);
+    }
+    fill(MINES, random);
+    fill(REVEALED, random);
+    fill(EXPLODED, random);
+    fill(FLAGGED_WHITE, random);
+    fill(FLAGGED_BLACK, random);
+    for (int level = 1; level < ARMED_LEVELS; level++) {
+      fill(ARMED[level], random);
+    }
+    for (int bits = 1; bits < CASTLING.length; bits++) {
+      CASTLING[bits] = random.nextLong();
+    }
+    fill(EN_PASSANT_FILE, random);
+    BLACK_TO_MOVE = random.nextLong();
+  }
+
+  private Zobrist() {
+  }
+
+  static long armed(int turns, int square) {
+    return ARMED[turns & (ARMED_LEVELS - 1)][square];
+  }
+
+  private static void fill(long[] table, SplittableRandom random) {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = random.nextLong();
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package com.hazardchess.model.io;
+
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.PersistentGameState;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class AutosaveService implements AutoCloseable {
+  private final GameJournal journal;
+  private final AtomicReference<PersistentGameState> pending = new AtomicReference<>();
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "hazard-autosave");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private volatile long requests;
+  private volatile long coalesced;
+  private volatile long writes;
+  private volatile long failures;
+  private volatile long lastWriteNanos;
+  private volatile long maxWriteNanos;
+  private volatile long totalWriteNanos;
+  private volatile Exception lastFailure;
+
+  public AutosaveService(Path target) {
+    this(new GameJournal(target));
+  }
+
+  public AutosaveService(GameJournal journal) {
+    this.journal = journal;
+  }
+
+  public Path getTarget() {
+    return journal.getCheckpointPath();
+  }
+
+  public GameState recover() throws IOException {
+    try {
+      return writer.submit(journal::recover).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while recovering " + getTarget(), e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException io) {
+        throw io;
+      }
+      throw new IOException("Failed to recover " + getTarget(), e.getCause());
+    }
+  }
+
+  public void request(GameState state) {
+    requests++;
+    if (pending.getAndSet(state.snapshot()) == null) {
+      writer.execute(this::drain);
+    } else {
+      coalesced++;
+    }
+  }
+
+  public void delete() {
+    pending.set(null);
+    writer.execute(() -> {
+      try {
+        journal.delete();
+      } catch (IOException e) {
+        failures++;
+        lastFailure = e;
+      }
+    });
+  }
+
+  public boolean flush(long timeoutMillis) {
+    try {
+      writer.submit(() -> { }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException | TimeoutException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void close() {
+    writer.execute(() -> {
+      try {
+        journal.close();
+      } catch (IOException ignored) {
+        // nothing left to flush
+      }
+    });
+    writer.shutdown();
+  }
+
+  public long getRequests() {
+    return requests;
+  }
+
+  public long getWrites() {
+    return writes;
+  }
+
+  public long getCoalesced() {
+    return coalesced;
+  }
+
+  public long getFailures() {
+    return failures;
+  }
+
+  public long getLastWriteNanos() {
+    return lastWriteNanos;
+  }
+
+  public long getMaxWriteNanos() {
+    return maxWriteNanos;
+  }
+
+  public long getAverageWriteNanos() {
+    long count = writes;
+    return count == 0 ? 0 : totalWriteNanos / count;
+  }
+
+  public Exception getLastFailure() {
+    return lastFailure;
+  }
+
+  private void drain() {
+    PersistentGameState next;
+    while ((next = pending.getAndSet(null)) != null) {
+      write(next.toGameState());
+    }
+  }
+
+  private void write(GameState state) {
+    long start = System.nanoTime();
+    try {
+      journal.write(state);
+      long elapsed = System.nanoTime() - start;
+      lastWriteNanos = elapsed;
+      maxWriteNanos = Math.max(maxWriteNanos, elapsed);
+      totalWriteNanos += elapsed;
+      writes++;
+    } catch (IOException | RuntimeException e) {
+      failures++;
+      lastFailure = e;
+    }
+  }
+}
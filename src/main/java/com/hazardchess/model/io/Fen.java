@@ -0,0 +1,112 @@
+package com.hazardchess.model.io;
+
+import com.hazardchess.model.Board;
+import com.hazardchess.model.CastlingRights;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Move;
+import com.hazardchess.model.Piece;
+import com.hazardchess.model.PieceType;
+import com.hazardchess.model.PlayerColor;
+import com.hazardchess.model.Square;
+import java.util.Random;
+
+public final class Fen {
+  public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+  private Fen() {
+  }
+
+  public static GameState parse(String fen) {
+    String[] fields = fen.trim().split("\\s+");
+    if (fields.length < 2) {
+      throw new IllegalArgumentException("FEN needs at least placement and side to move: " + fen);
+    }
+    GameState state = new GameState(0, new Random(0));
+    Board board = state.getBoard();
+    board.clear();
+    String[] ranks = fields[0].split("/");
+    if (ranks.length != Board.SIZE) {
+      throw new IllegalArgumentException("FEN placement needs 8 ranks: " + fields[0]);
+    }
+    for (int row = 0; row < Board.SIZE; row++) {
+      int col = 0;
+      for (char c : ranks[row].toCharArray()) {
+        if (Character.isDigit(c)) {
+          col += c - '0';
+          continue;
+        }
+        if (col >= Board.SIZE) {
+          throw new IllegalArgumentException("FEN rank overflows: " + ranks[row]);
+        }
+        PlayerColor color = Character.isUpperCase(c) ? PlayerColor.WHITE : PlayerColor.BLACK;
+        board.setPiece(row, col++, Piece.of(color, pieceType(c)));
+      }
+    }
+    state.setToMove("b".equals(fields[1]) ? PlayerColor.BLACK : PlayerColor.WHITE);
+    String castling = fields.length > 2 ? fields[2] : "-";
+    CastlingRights rights = new CastlingRights();
+    if (castling.indexOf('K') < 0) {
+      rights.revokeWhiteKingSide();
+    }
+    if (castling.indexOf('Q') < 0) {
+      rights.revokeWhiteQueenSide();
+    }
+    if (castling.indexOf('k') < 0) {
+      rights.revokeBlackKingSide();
+    }
+    if (castling.indexOf('q') < 0) {
+      rights.revokeBlackQueenSide();
+    }
+    state.setCastlingRights(rights);
+    if (fields.length > 3 && !"-".equals(fields[3])) {
+      state.setEnPassantTarget(parseSquare(fields[3]));
+    }
+    if (fields.length > 4) {
+      state.setHalfmoveClock(Integer.parseInt(fields[4]));
+    }
+    state.resetPositionHistory();
+    return state;
+  }
+
+  public static Square parseSquare(String name) {
+    if (name.length() != 2) {
+      throw new IllegalArgumentException("Bad square: " + name);
+    }
+    int col = name.charAt(0) - 'a';
+    int row = Board.SIZE - (name.charAt(1) - '0');
+    if (col < 0 || col >= Board.SIZE || row < 0 || row >= Board.SIZE) {
+      throw new IllegalArgumentException("Bad square: " + name);
+    }
+    return new Square(row, col);
+  }
+
+  public static String squareName(Square square) {
+    return "" + (char) ('a' + square.getCol()) + (Board.SIZE - square.getRow());
+  }
+
+  public static String moveName(Move move) {
+    String name = squareName(move.getFrom()) + squareName(move.getTo());
+    if (move.isPromotion()) {
+      name += switch (move.getPromotion()) {
+        case QUEEN -> "q";
+        case ROOK -> "r";
+        case BISHOP -> "b";
+        case KNIGHT -> "n";
+        default -> "";
+      };
+    }
+    return name;
+  }
+
+  private static PieceType pieceType(char c) {
+    return switch (Character.toLowerCase(c)) {
+      case 'k' -> PieceType.KING;
+      case 'q' -> PieceType.QUEEN;
+      case 'r' -> PieceType.ROOK;
+      case 'b' -> PieceType.BISHOP;
+      case 'n' -> PieceType.KNIGHT;
+      case 'p' -> PieceType.PAWN;
+      default -> throw new IllegalArgumentException("Unknown FEN piece: " + c);
+    };
+  }
+}
@@ -0,0 +1,238 @@
+package com.hazardchess.model.io;
+
+import com.hazardchess.model.GameState;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+public final class GameJournal implements AutoCloseable {
+  public static final int DEFAULT_CHECKPOINT_INTERVAL = 64;
+  private static final int MAGIC = 0x485A4A4C;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 4 + 1 + 1 + 8 + 4 + 8 + 8 + 4;
+  private static final byte ACTION = 1;
+  private static final byte TRUNCATE = 2;
+  private static final byte ELAPSED = 3;
+
+  private final Path checkpoint;
+  private final Path journal;
+  private final int checkpointInterval;
+  private final GameStateBinary binary = new GameStateBinary();
+  private FileChannel channel;
+  private int[] written = new int[0];
+  private int checkpointActions;
+  private Long seed;
+  private long mines;
+  private boolean botEnabled;
+  private long elapsedSeconds;
+  private long journaledActions;
+  private long checkpoints;
+
+  public GameJournal(Path checkpoint) {
+    this(checkpoint, DEFAULT_CHECKPOINT_INTERVAL);
+  }
+
+  public GameJournal(Path checkpoint, int checkpointInterval) {
+    this.checkpoint = checkpoint;
+    this.journal = checkpoint.resolveSibling(checkpoint.getFileName() + ".journal");
+    this.checkpointInterval = Math.max(1, checkpointInterval);
+  }
+
+  public Path getCheckpointPath() {
+    return checkpoint;
+  }
+
+  public Path getJournalPath() {
+    return journal;
+  }
+
+  public long getJournaledActions() {
+    return journaledActions;
+  }
+
+  public long getCheckpoints() {
+    return checkpoints;
+  }
+
+  public void write(GameState state) throws IOException {
+    int[] actions = state.getActions();
+    if (channel == null || needsCheckpoint(state, actions)) {
+      writeCheckpoint(state, actions);
+      return;
+    }
+    int common = 0;
+    int limit = Math.min(written.length, actions.length);
+    while (common < limit && written[common] == actions[common]) {
+      common++;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(5 + (actions.length - common) * 5 + 9);
+    if (common < written.length) {
+      buffer.put(TRUNCATE).putInt(common);
+    }
+    for (int i = common; i < actions.length; i++) {
+      buffer.put(ACTION).putInt(actions[i]);
+    }
+    if (state.getElapsedSeconds() != elapsedSeconds) {
+      buffer.put(ELAPSED).putLong(state.getElapsedSeconds());
+    }
+    buffer.flip();
+    if (!buffer.hasRemaining()) {
+      return;
+    }
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+    journaledActions += actions.length - common;
+    written = actions;
+    elapsedSeconds = state.getElapsedSeconds();
+  }
+
+  public GameState recover() throws IOException {
+    if (!Files.exists(checkpoint)) {
+      return null;
+    }
+    GameState state = new GameStateStore().load(checkpoint);
+    if (!Files.exists(journal)) {
+      return state;
+    }
+    int[] base = state.getActions();
+    int[] actions = base;
+    int count = base.length;
+    long elapsed = state.getElapsedSeconds();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+      if (!headerMatches(in, state)) {
+        return state;
+      }
+      while (true) {
+        int type = in.read();
+        if (type < 0) {
+          break;
+        }
+        try {
+          if (type == ACTION) {
+            if (count == actions.length) {
+              actions = Arrays.copyOf(actions, Math.max(16, count * 2));
+            }
+            actions[count++] = in.readInt();
+          } else if (type == TRUNCATE) {
+            count = Math.max(base.length, Math.min(count, in.readInt()));
+          } else if (type == ELAPSED) {
+            elapsed = in.readLong();
+          } else {
+            break;
+          }
+        } catch (EOFException e) {
+          break;
+        }
+      }
+    }
+    for (int i = base.length; i < count; i++) {
+      state.applyAction(actions[i]);
+    }
+    state.setElapsedSeconds(elapsed);
+    return state;
+  }
+
+  public void delete() throws IOException {
+    close();
+    Files.deleteIfExists(journal);
+    Files.deleteIfExists(checkpoint);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  private boolean needsCheckpoint(GameState state, int[] actions) {
+    if (!Objects.equals(seed, state.getMineSeed()) || mines != state.getMinefield().getMineMask()
+        || botEnabled != state.isBotEnabled() || actions.length < checkpointActions) {
+      return true;
+    }
+    if (actions.length - checkpointActions >= checkpointInterval) {
+      return true;
+    }
+    for (int i = 0; i < checkpointActions; i++) {
+      if (actions[i] != written[i]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void writeCheckpoint(GameState state, int[] actions) throws IOException {
+    close();
+    byte[] data = binary.encode(state);
+    Path temp = Files.createTempFile(checkpoint.toAbsolutePath().getParent(), checkpoint.getFileName().toString(),
+        ".tmp");
+    try {
+      Files.write(temp, data);
+      try {
+        Files.move(temp, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    seed = state.getMineSeed();
+    mines = state.getMinefield().getMineMask();
+    botEnabled = state.isBotEnabled();
+    elapsedSeconds = state.getElapsedSeconds();
+    checkpointActions = actions.length;
+    written = actions;
+    checkpoints++;
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.putInt(MAGIC).put((byte) VERSION).put((byte) (seed != null ? 1 : 0)).putLong(seed != null ? seed : 0L)
+        .putInt(state.getMineCount()).putLong(mines).putLong(state.getPositionKey()).putInt(checkpointActions);
+    header.flip();
+    channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    while (header.hasRemaining()) {
+      channel.write(header);
+    }
+    channel.force(false);
+  }
+
+  private static boolean headerMatches(DataInputStream in, GameState state) throws IOException {
+    try {
+      if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+        return false;
+      }
+      boolean seeded = in.readUnsignedByte() != 0;
+      long seed = in.readLong();
+      int mineCount = in.readInt();
+      long mines = in.readLong();
+      long key = in.readLong();
+      int actions = in.readInt();
+      return seeded == (state.getMineSeed() != null)
+          && (!seeded || seed == state.getMineSeed())
+          && mineCount == state.getMineCount()
+          && mines == state.getMinefield().getMineMask()
+          && key == state.getPositionKey()
+          && actions == state.getActions().length;
+    } catch (EOFException e) {
+      return false;
+    }
+  }
+}
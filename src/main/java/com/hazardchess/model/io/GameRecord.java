@@ -0,0 +1,30 @@
+package com.hazardchess.model.io;
+
+import com.hazardchess.model.GameState;
+
+public final class GameRecord {
+  public int mineCount;
+  public long mineSeed;
+  public int[] actions;
+  public long positionKey;
+
+  public static GameRecord from(GameState state) {
+    if (state.getMineSeed() == null) {
+      throw new IllegalArgumentException("Game has no recorded mine seed");
+    }
+    GameRecord record = new GameRecord();
+    record.mineCount = state.getMineCount();
+    record.mineSeed = state.getMineSeed();
+    record.actions = state.getActions();
+    record.positionKey = state.getPositionKey();
+    return record;
+  }
+
+  public GameState replay() {
+    return GameState.replay(mineCount, mineSeed, actions == null ? new int[0] : actions);
+  }
+
+  public boolean matches(GameState state) {
+    return state.getPositionKey() == positionKey;
+  }
+}
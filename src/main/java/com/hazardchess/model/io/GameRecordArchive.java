@@ -0,0 +1,37 @@
+package com.hazardchess.model.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class GameRecordArchive {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  public void write(Path path, List<GameRecord> records) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      for (GameRecord record : records) {
+        writer.write(MAPPER.writeValueAsString(record));
+        writer.newLine();
+      }
+    }
+  }
+
+  public List<GameRecord> read(Path path) throws IOException {
+    List<GameRecord> records = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isBlank()) {
+          records.add(MAPPER.readValue(line, GameRecord.class));
+        }
+      }
+    }
+    return records;
+  }
+}
@@ -0,0 +1,231 @@
+package com.hazardchess.model.io;
+
+import com.hazardchess.model.Board;
+import com.hazardchess.model.CastlingRights;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Minefield;
+import com.hazardchess.model.Move;
+import com.hazardchess.model.Piece;
+import com.hazardchess.model.PieceType;
+import com.hazardchess.model.PlayerColor;
+import com.hazardchess.model.Square;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class GameStateBinary {
+  public static final int MAGIC = 0x485A4342;
+  public static final int VERSION = 2;
+
+  private static final int BLACK_TO_MOVE = 1;
+  private static final int BOT_ENABLED = 2;
+  private static final int HAS_EN_PASSANT = 4;
+  private static final int HAS_SEED = 8;
+  private static final PlayerColor[] COLORS = PlayerColor.values();
+  private static final PieceType[] TYPES = PieceType.values();
+
+  public void save(GameState state, Path path) throws IOException {
+    Files.write(path, encode(state));
+  }
+
+  public GameState load(Path path) throws IOException {
+    return decode(Files.readAllBytes(path));
+  }
+
+  public static boolean isBinary(byte[] data) {
+    return data.length >= 4
+        && ((data[0] & 0xFF) << 24 | (data[1] & 0xFF) << 16 | (data[2] & 0xFF) << 8 | (data[3] & 0xFF)) == MAGIC;
+  }
+
+  public byte[] encode(GameState state) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    Square enPassant = state.getEnPassantTarget();
+    int flags = (state.getToMove() == PlayerColor.BLACK ? BLACK_TO_MOVE : 0)
+        | (state.isBotEnabled() ? BOT_ENABLED : 0)
+        | (enPassant != null ? HAS_EN_PASSANT : 0)
+        | (state.getMineSeed() != null ? HAS_SEED : 0);
+    out.writeByte(flags);
+    CastlingRights rights = state.getCastlingRights();
+    out.writeByte((rights.canWhiteKingSide() ? 1 : 0) | (rights.canWhiteQueenSide() ? 2 : 0)
+        | (rights.canBlackKingSide() ? 4 : 0) | (rights.canBlackQueenSide() ? 8 : 0));
+    if (enPassant != null) {
+      out.writeByte(Board.index(enPassant.getRow(), enPassant.getCol()));
+    }
+    out.writeInt(state.getHalfmoveClock());
+    out.writeLong(state.getElapsedSeconds());
+
+    Board board = state.getBoard();
+    long occupied = board.getOccupied();
+    out.writeLong(occupied);
+    for (long pending = occupied; pending != 0; pending &= pending - 1) {
+      out.writeByte(pieceCode(board.getPiece(Long.numberOfTrailingZeros(pending))));
+    }
+
+    Minefield minefield = state.getMinefield();
+    out.writeLong(minefield.getMineMask());
+    out.writeLong(minefield.getRevealedMask());
+    out.writeLong(minefield.getExplodedMask());
+    out.writeLong(minefield.getFlaggedMask(PlayerColor.WHITE));
+    out.writeLong(minefield.getFlaggedMask(PlayerColor.BLACK));
+    long armedLow = 0L;
+    long armedHigh = 0L;
+    for (long pending = minefield.getArmedMask(); pending != 0; pending &= pending - 1) {
+      int square = Long.numberOfTrailingZeros(pending);
+      int turns = minefield.getArmedTurns(Board.rowOf(square), Board.colOf(square));
+      armedLow |= (turns & 1L) << square;
+      armedHigh |= ((turns >>> 1) & 1L) << square;
+    }
+    out.writeLong(armedLow);
+    out.writeLong(armedHigh);
+
+    writeMoves(out, state.getMoveHistory());
+    writeMoves(out, state.getRedoStack());
+    writePieces(out, state.getCapturedWhite());
+    writePieces(out, state.getCapturedBlack());
+    writePieces(out, state.getMinedWhite());
+    writePieces(out, state.getMinedBlack());
+    List<Long> positions = state.getPositionHistory();
+    out.writeInt(positions.size());
+    for (long key : positions) {
+      out.writeLong(key);
+    }
+
+    out.writeInt(state.getMineCount());
+    if (state.getMineSeed() != null) {
+      out.writeLong(state.getMineSeed());
+    }
+    int[] actions = state.getActions();
+    out.writeInt(actions.length);
+    for (int action : actions) {
+      out.writeInt(action);
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  public GameState decode(byte[] data) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a binary hazard chess save");
+    }
+    int version = in.readUnsignedByte();
+    if (version < 1 || version > VERSION) {
+      throw new IOException("Unsupported save version " + version);
+    }
+    int flags = in.readUnsignedByte();
+    int castling = in.readUnsignedByte();
+    GameState state = new GameState(0, new Random());
+    if ((flags & HAS_EN_PASSANT) != 0) {
+      int square = in.readUnsignedByte();
+      state.setEnPassantTarget(new Square(Board.rowOf(square), Board.colOf(square)));
+    }
+    CastlingRights rights = new CastlingRights();
+    if ((castling & 1) == 0) {
+      rights.revokeWhiteKingSide();
+    }
+    if ((castling & 2) == 0) {
+      rights.revokeWhiteQueenSide();
+    }
+    if ((castling & 4) == 0) {
+      rights.revokeBlackKingSide();
+    }
+    if ((castling & 8) == 0) {
+      rights.revokeBlackQueenSide();
+    }
+    state.setCastlingRights(rights);
+    state.setToMove((flags & BLACK_TO_MOVE) != 0 ? PlayerColor.BLACK : PlayerColor.WHITE);
+    state.setBotEnabled((flags & BOT_ENABLED) != 0);
+    state.setHalfmoveClock(in.readInt());
+    state.setElapsedSeconds(in.readLong());
+
+    Board board = state.getBoard();
+    board.clear();
+    for (long pending = in.readLong(); pending != 0; pending &= pending - 1) {
+      int square = Long.numberOfTrailingZeros(pending);
+      board.setPiece(Board.rowOf(square), Board.colOf(square), piece(in.readUnsignedByte()));
+    }
+
+    state.getMinefield().setLayers(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+        in.readLong(), in.readLong());
+
+    state.setMoveHistory(readMoves(in));
+    state.setRedoStack(readMoves(in));
+    state.setCapturedWhite(readPieces(in));
+    state.setCapturedBlack(readPieces(in));
+    state.setMinedWhite(readPieces(in));
+    state.setMinedBlack(readPieces(in));
+    int positions = in.readInt();
+    List<Long> keys = new ArrayList<>(positions);
+    for (int i = 0; i < positions; i++) {
+      keys.add(in.readLong());
+    }
+    state.setPositionHistory(keys);
+
+    int mineCount = in.readInt();
+    Long seed = (flags & HAS_SEED) != 0 ? in.readLong() : null;
+    int[] actions = new int[0];
+    if (seed != null || version > 1) {
+      actions = new int[in.readInt()];
+      for (int i = 0; i < actions.length; i++) {
+        actions[i] = in.readInt();
+      }
+    }
+    state.setActionLog(mineCount, seed, actions);
+    return state;
+  }
+
+  private static void writeMoves(DataOutputStream out, List<Move> moves) throws IOException {
+    out.writeInt(moves.size());
+    for (Move move : moves) {
+      out.writeShort(move.encode());
+    }
+  }
+
+  private static List<Move> readMoves(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    List<Move> moves = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      moves.add(Move.decode(in.readUnsignedShort()));
+    }
+    return moves;
+  }
+
+  private static void writePieces(DataOutputStream out, List<Piece> pieces) throws IOException {
+    out.writeShort(pieces.size());
+    for (Piece piece : pieces) {
+      out.writeByte(pieceCode(piece));
+    }
+  }
+
+  private static List<Piece> readPieces(DataInputStream in) throws IOException {
+    int count = in.readUnsignedShort();
+    List<Piece> pieces = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      pieces.add(piece(in.readUnsignedByte()));
+    }
+    return pieces;
+  }
+
+  private static int pieceCode(Piece piece) {
+    return piece.getColor().ordinal() << 3 | piece.getType().ordinal();
+  }
+
+  private static Piece piece(int code) throws IOException {
+    int color = code >>> 3;
+    int type = code & 7;
+    if (color >= COLORS.length || type >= TYPES.length) {
+      throw new IOException("Corrupt piece code " + code);
+    }
+    return Piece.of(COLORS[color], TYPES[type]);
+  }
+}
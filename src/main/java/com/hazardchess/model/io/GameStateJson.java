@@ -17,4 +17,8 @@ public final class GameStateJson {
     GameStateSnapshot snapshot = MAPPER.readValue(path.toFile(), GameStateSnapshot.class);
     return snapshot.toGameState();
   }
+
+  public GameState read(byte[] data) throws IOException {
+    return MAPPER.readValue(data, GameStateSnapshot.class).toGameState();
+  }
 }
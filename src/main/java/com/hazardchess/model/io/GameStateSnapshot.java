@@ -37,6 +37,10 @@ public final class GameStateSnapshot {
   public Boolean botEnabled;
   public Integer halfmoveClock;
   public List<String> positionHistory;
+  public List<Long> positionKeys;
+  public Integer mineCount;
+  public Long mineSeed;
+  public int[] actions;
 
   public static GameStateSnapshot from(GameState state) {
     GameStateSnapshot snapshot = new GameStateSnapshot();
@@ -65,7 +69,10 @@ public final class GameStateSnapshot {
     snapshot.elapsedSeconds = state.getElapsedSeconds();
     snapshot.botEnabled = state.isBotEnabled();
     snapshot.halfmoveClock = state.getHalfmoveClock();
-    snapshot.positionHistory = new ArrayList<>(state.getPositionHistory());
+    snapshot.positionKeys = new ArrayList<>(state.getPositionHistory());
+    snapshot.mineCount = state.getMineCount();
+    snapshot.mineSeed = state.getMineSeed();
+    snapshot.actions = state.getActions();
     return snapshot;
   }
 
@@ -83,7 +90,7 @@ public final class GameStateSnapshot {
         for (int col = 0; col < cols; col++) {
           PieceSnapshot piece = board[row][col];
           if (piece != null) {
-            boardModel.setPiece(row, col, new Piece(piece.color, piece.type));
+            boardModel.setPiece(row, col, Piece.of(piece.color, piece.type));
           }
         }
       }
@@ -140,7 +147,9 @@ public final class GameStateSnapshot {
     if (halfmoveClock != null) {
       state.setHalfmoveClock(halfmoveClock);
     }
-    state.setPositionHistory(positionHistory);
+    state.setPositionHistory(positionKeys);
+    state.setActionLog(mineCount == null ? Long.bitCount(state.getMinefield().getMineMask()) : mineCount,
+        mineSeed, actions);
     return state;
   }
 
@@ -211,7 +220,7 @@ public final class GameStateSnapshot {
       return result;
     }
     for (PieceSnapshot piece : pieces) {
-      result.add(new Piece(piece.color, piece.type));
+      result.add(Piece.of(piece.color, piece.type));
     }
     return result;
   }
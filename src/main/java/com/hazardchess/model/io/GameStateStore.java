@@ -0,0 +1,20 @@
+package com.hazardchess.model.io;
+
+import com.hazardchess.model.GameState;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public final class GameStateStore {
+  private final GameStateBinary binary = new GameStateBinary();
+  private final GameStateJson json = new GameStateJson();
+
+  public void save(GameState state, Path path) throws IOException {
+    binary.save(state, path);
+  }
+
+  public GameState load(Path path) throws IOException {
+    byte[] data = Files.readAllBytes(path);
+    return GameStateBinary.isBinary(data) ? binary.decode(data) : json.read(data);
+  }
+}
@@ -0,0 +1,113 @@
+package com.hazardchess.tools;
+
+import com.hazardchess.model.Board;
+import com.hazardchess.model.ChessEngine;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Move;
+import com.hazardchess.model.MoveUndo;
+import com.hazardchess.model.Square;
+import com.hazardchess.model.io.Fen;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public final class Perft {
+  private final ChessEngine engine = new ChessEngine();
+
+  public long count(GameState state, int depth) {
+    if (depth <= 0) {
+      return 1;
+    }
+    List<Move> moves = engine.legalMoves(state);
+    if (depth == 1) {
+      return moves.size();
+    }
+    long nodes = 0;
+    for (Move move : moves) {
+      MoveUndo undo = state.makeMove(move);
+      nodes += count(state, depth - 1);
+      state.unmakeMove(undo);
+    }
+    return nodes;
+  }
+
+  public Map<String, Long> divide(GameState state, int depth) {
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (Move move : engine.legalMoves(state)) {
+      MoveUndo undo = state.makeMove(move);
+      result.put(Fen.moveName(move), count(state, depth - 1));
+      state.unmakeMove(undo);
+    }
+    return result;
+  }
+
+  public static void placeMines(GameState state, List<Square> mines) {
+    boolean[][] layout = new boolean[Board.SIZE][Board.SIZE];
+    for (Square square : mines) {
+      layout[square.getRow()][square.getCol()] = true;
+    }
+    boolean[][] empty = new boolean[Board.SIZE][Board.SIZE];
+    state.getMinefield().setState(layout, empty, empty, empty, empty, new int[Board.SIZE][Board.SIZE]);
+    state.resetPositionHistory();
+  }
+
+  public static void main(String[] args) {
+    String fen = Fen.START;
+    int depth = 4;
+    boolean divide = false;
+    Long expected = null;
+    String mineList = null;
+    Long mineSeed = null;
+    int mineCount = 0;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--fen" -> fen = args[++i];
+        case "--depth" -> depth = Integer.parseInt(args[++i]);
+        case "--divide" -> divide = true;
+        case "--expect" -> expected = Long.parseLong(args[++i]);
+        case "--mines" -> mineList = args[++i];
+        case "--mine-seed" -> mineSeed = Long.parseLong(args[++i]);
+        case "--mine-count" -> mineCount = Integer.parseInt(args[++i]);
+        default -> {
+          System.err.println("Unknown option: " + args[i]);
+          System.err.println("Usage: Perft [--fen FEN] [--depth N] [--divide] [--expect NODES]"
+              + " [--mines a1,b2,... | --mine-seed SEED --mine-count N]");
+          System.exit(2);
+        }
+      }
+    }
+
+    GameState state = Fen.parse(fen);
+    if (mineList != null) {
+      List<Square> mines = new java.util.ArrayList<>();
+      for (String name : mineList.split(",")) {
+        mines.add(Fen.parseSquare(name.trim()));
+      }
+      placeMines(state, mines);
+    } else if (mineSeed != null) {
+      state.getMinefield().generate(mineCount, new Random(mineSeed), null);
+      state.resetPositionHistory();
+    }
+
+    Perft perft = new Perft();
+    long start = System.nanoTime();
+    long nodes;
+    if (divide) {
+      nodes = 0;
+      for (Map.Entry<String, Long> entry : perft.divide(state, depth).entrySet()) {
+        System.out.println(entry.getKey() + ": " + entry.getValue());
+        nodes += entry.getValue();
+      }
+    } else {
+      nodes = perft.count(state, depth);
+    }
+    long elapsedNanos = Math.max(1, System.nanoTime() - start);
+    System.out.printf("depth %d nodes %d time %.3fs nps %.0f%n", depth, nodes, elapsedNanos / 1e9,
+        nodes * 1e9 / elapsedNanos);
+    if (expected != null && expected != nodes) {
+      System.err.println("Expected " + expected + " nodes but counted " + nodes);
+      System.exit(1);
+    }
+  }
+}
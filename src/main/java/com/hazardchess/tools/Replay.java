@@ -0,0 +1,90 @@
+package com.hazardchess.tools;
+
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.io.GameRecord;
+import com.hazardchess.model.io.GameRecordArchive;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public final class Replay {
+  private static final int REPORTED_MISMATCHES = 10;
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    List<Path> archives = new ArrayList<>();
+    int repeat = 1;
+    int threads = 1;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--repeat" -> repeat = Integer.parseInt(args[++i]);
+        case "--threads" -> threads = Integer.parseInt(args[++i]);
+        default -> {
+          if (args[i].startsWith("--")) {
+            System.err.println("Unknown option: " + args[i]);
+            System.err.println("Usage: Replay ARCHIVE... [--repeat N] [--threads N]");
+            System.exit(2);
+          }
+          archives.add(Path.of(args[i]));
+        }
+      }
+    }
+    if (archives.isEmpty()) {
+      System.err.println("Usage: Replay ARCHIVE... [--repeat N] [--threads N]");
+      System.exit(2);
+    }
+
+    GameRecordArchive archive = new GameRecordArchive();
+    List<GameRecord> records = new ArrayList<>();
+    for (Path path : archives) {
+      records.addAll(archive.read(path));
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+    long plies = 0;
+    List<GameRecord> mismatches = new ArrayList<>();
+    long start = System.nanoTime();
+    try {
+      for (int pass = 0; pass < repeat; pass++) {
+        List<Future<Boolean>> pending = new ArrayList<>();
+        for (GameRecord record : records) {
+          pending.add(pool.submit(() -> {
+            GameState state = record.replay();
+            return record.matches(state);
+          }));
+        }
+        for (int i = 0; i < pending.size(); i++) {
+          GameRecord record = records.get(i);
+          boolean matches;
+          try {
+            matches = pending.get(i).get();
+          } catch (ExecutionException e) {
+            throw new IllegalStateException("Replay of seed " + record.mineSeed + " failed", e.getCause());
+          }
+          plies += record.actions == null ? 0 : record.actions.length;
+          if (!matches && pass == 0) {
+            mismatches.add(record);
+          }
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    long elapsedNanos = Math.max(1, System.nanoTime() - start);
+
+    for (GameRecord record : mismatches.subList(0, Math.min(REPORTED_MISMATCHES, mismatches.size()))) {
+      System.err.printf(Locale.ROOT, "final position differs for seed %d (%d mines, %d actions)%n",
+          record.mineSeed, record.mineCount, record.actions == null ? 0 : record.actions.length);
+    }
+    System.out.printf(Locale.ROOT, "games %d actions %d mismatches %d time %.3fs actions/s %.0f%n",
+        (long) records.size() * repeat, plies, mismatches.size(), elapsedNanos / 1e9, plies * 1e9 / elapsedNanos);
+    if (!mismatches.isEmpty()) {
+      System.exit(1);
+    }
+  }
+}
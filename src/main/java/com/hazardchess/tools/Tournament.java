@@ -0,0 +1,321 @@
+package com.hazardchess.tools;
+
+import com.hazardchess.ai.AiDifficulty;
+import com.hazardchess.ai.AlphaBetaSearch;
+import com.hazardchess.ai.SimpleAi;
+import com.hazardchess.model.Board;
+import com.hazardchess.model.ChessEngine;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Move;
+import com.hazardchess.model.PlayerColor;
+import com.hazardchess.model.PlayerView;
+import com.hazardchess.model.io.GameRecord;
+import com.hazardchess.model.io.GameRecordArchive;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class Tournament {
+  private static final int DEFAULT_MINES = 12;
+  private static final int DEFAULT_MAX_PLIES = 400;
+  private static final double Z_95 = 1.959964;
+
+  private final Player first;
+  private final Player second;
+  private final int mineCount;
+  private final int maxPlies;
+
+  public Tournament(Player first, Player second, int mineCount, int maxPlies) {
+    this.first = first;
+    this.second = second;
+    this.mineCount = Math.max(0, mineCount);
+    this.maxPlies = Math.max(1, maxPlies);
+  }
+
+  public GameResult play(long seed, boolean firstIsWhite) {
+    try (SimpleAi white = (firstIsWhite ? first : second).create();
+         SimpleAi black = (firstIsWhite ? second : first).create()) {
+      return play(seed, firstIsWhite, white, black);
+    }
+  }
+
+  private GameResult play(long seed, boolean firstIsWhite, SimpleAi white, SimpleAi black) {
+    ChessEngine engine = new ChessEngine();
+    GameState state = new GameState(mineCount, seed);
+    AiDifficulty whiteLevel = (firstIsWhite ? first : second).difficulty;
+    AiDifficulty blackLevel = (firstIsWhite ? second : first).difficulty;
+    PlayerColor winner = null;
+    boolean finished = false;
+    int plies = 0;
+    long start = System.nanoTime();
+    while (true) {
+      Board board = state.getBoard();
+      if (board.findKing(PlayerColor.WHITE) == null || board.findKing(PlayerColor.BLACK) == null) {
+        winner = board.findKing(PlayerColor.WHITE) != null ? PlayerColor.WHITE
+            : board.findKing(PlayerColor.BLACK) != null ? PlayerColor.BLACK : null;
+        finished = true;
+        break;
+      }
+      PlayerColor toMove = state.getToMove();
+      if (engine.isCheckmate(state, toMove)) {
+        winner = toMove == PlayerColor.WHITE ? PlayerColor.BLACK : PlayerColor.WHITE;
+        finished = true;
+        break;
+      }
+      if (state.isDraw(engine)) {
+        finished = true;
+        break;
+      }
+      if (plies >= maxPlies) {
+        break;
+      }
+      SimpleAi ai = toMove == PlayerColor.WHITE ? white : black;
+      AiDifficulty level = toMove == PlayerColor.WHITE ? whiteLevel : blackLevel;
+      PlayerView view = PlayerView.of(state, toMove);
+      long flags = ai.suggestFlags(view, level);
+      for (long pending = flags; pending != 0; pending &= pending - 1) {
+        int square = Long.numberOfTrailingZeros(pending);
+        state.toggleFlag(Board.rowOf(square), Board.colOf(square), toMove);
+      }
+      Move move = ai.chooseMove(view.withFlags(view.getFlaggedMask() | flags), level, () -> false);
+      if (move == null) {
+        finished = true;
+        break;
+      }
+      state.applyMove(move);
+      plies++;
+    }
+    double score = winner == null ? 0.5
+        : (winner == PlayerColor.WHITE) == firstIsWhite ? 1 : 0;
+    return new GameResult(seed, firstIsWhite, score, plies, finished, System.nanoTime() - start,
+        GameRecord.from(state));
+  }
+
+  public List<GameResult> run(int games, long seed, int threads) throws InterruptedException {
+    GameResult[] results = new GameResult[Math.max(0, games)];
+    int workers = Math.max(1, Math.min(threads, results.length));
+    ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+      Thread thread = new Thread(runnable, "hazard-tournament");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      AtomicInteger next = new AtomicInteger();
+      List<Future<?>> pending = new ArrayList<>();
+      for (int worker = 0; worker < workers; worker++) {
+        pending.add(pool.submit(() -> playGames(seed, next, results)));
+      }
+      for (Future<?> future : pending) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Tournament game failed", e.getCause());
+        }
+      }
+      return Arrays.asList(results);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  // Each worker keeps one engine per player for all of its games and only
+  // clears the transposition tables in between.
+  private void playGames(long seed, AtomicInteger next, GameResult[] results) {
+    try (SimpleAi firstAi = first.create(); SimpleAi secondAi = second.create()) {
+      for (int game = next.getAndIncrement(); game < results.length; game = next.getAndIncrement()) {
+        boolean firstIsWhite = game % 2 == 0;
+        firstAi.clearHash();
+        secondAi.clearHash();
+        results[game] = play(seed + game / 2, firstIsWhite, firstIsWhite ? firstAi : secondAi,
+            firstIsWhite ? secondAi : firstAi);
+      }
+    }
+  }
+
+  // A perfect or zero score has no finite Elo. Clamping to half a game
+  // from either end keeps the estimate and its interval finite.
+  public static double elo(double score, int games) {
+    double floor = 0.5 / Math.max(1, games);
+    double clamped = Math.min(1 - floor, Math.max(floor, score));
+    return 400 * Math.log10(clamped / (1 - clamped));
+  }
+
+  public static final class Player {
+    private final AiDifficulty difficulty;
+    private final long budgetMillis;
+    private final int searchThreads;
+    private final int hashMegabytes;
+
+    public Player(AiDifficulty difficulty, long budgetMillis, int searchThreads, int hashMegabytes) {
+      this.difficulty = difficulty;
+      this.budgetMillis = budgetMillis;
+      this.searchThreads = searchThreads;
+      this.hashMegabytes = hashMegabytes;
+    }
+
+    public static Player parse(String spec, long defaultBudgetMillis, int searchThreads, int hashMegabytes) {
+      String[] parts = spec.split(":", 2);
+      AiDifficulty difficulty = AiDifficulty.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+      long budget = parts.length > 1 ? Long.parseLong(parts[1].trim()) : defaultBudgetMillis;
+      return new Player(difficulty, budget, searchThreads, hashMegabytes);
+    }
+
+    private SimpleAi create() {
+      SimpleAi ai = new SimpleAi(hashMegabytes);
+      ai.setSearchBudgetMillis(budgetMillis);
+      ai.setSearchThreads(searchThreads);
+      return ai;
+    }
+
+    @Override
+    public String toString() {
+      return difficulty + ":" + budgetMillis;
+    }
+  }
+
+  public static final class GameResult {
+    private final long seed;
+    private final boolean firstIsWhite;
+    private final double score;
+    private final int plies;
+    private final boolean finished;
+    private final long nanos;
+    private final GameRecord record;
+
+    private GameResult(long seed, boolean firstIsWhite, double score, int plies, boolean finished, long nanos,
+                       GameRecord record) {
+      this.seed = seed;
+      this.firstIsWhite = firstIsWhite;
+      this.score = score;
+      this.plies = plies;
+      this.finished = finished;
+      this.nanos = nanos;
+      this.record = record;
+    }
+
+    public long getSeed() {
+      return seed;
+    }
+
+    public boolean isFirstWhite() {
+      return firstIsWhite;
+    }
+
+    public double getScore() {
+      return score;
+    }
+
+    public int getPlies() {
+      return plies;
+    }
+
+    public boolean isFinished() {
+      return finished;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    public GameRecord getRecord() {
+      return record;
+    }
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    String firstSpec = "HARD";
+    String secondSpec = "NORMAL";
+    int games = 100;
+    long seed = 1;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int searchThreads = 1;
+    int hashMegabytes = AlphaBetaSearch.DEFAULT_HASH_MEGABYTES;
+    long budget = SimpleAi.DEFAULT_SEARCH_BUDGET_MILLIS;
+    int mines = DEFAULT_MINES;
+    int maxPlies = DEFAULT_MAX_PLIES;
+    boolean verbose = false;
+    Path recordPath = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--a" -> firstSpec = args[++i];
+        case "--b" -> secondSpec = args[++i];
+        case "--games" -> games = Integer.parseInt(args[++i]);
+        case "--seed" -> seed = Long.parseLong(args[++i]);
+        case "--threads" -> threads = Integer.parseInt(args[++i]);
+        case "--search-threads" -> searchThreads = Integer.parseInt(args[++i]);
+        case "--hash" -> hashMegabytes = Integer.parseInt(args[++i]);
+        case "--budget" -> budget = Long.parseLong(args[++i]);
+        case "--mines" -> mines = Integer.parseInt(args[++i]);
+        case "--max-plies" -> maxPlies = Integer.parseInt(args[++i]);
+        case "--verbose" -> verbose = true;
+        case "--record" -> recordPath = Path.of(args[++i]);
+        default -> {
+          System.err.println("Unknown option: " + args[i]);
+          System.err.println("Usage: Tournament [--a LEVEL[:MILLIS]] [--b LEVEL[:MILLIS]] [--games N] [--seed S]"
+              + " [--threads N] [--search-threads N] [--hash MB] [--budget MILLIS] [--mines N] [--max-plies N] [--verbose]"
+              + " [--record FILE]");
+          System.exit(2);
+        }
+      }
+    }
+
+    Player first = Player.parse(firstSpec, budget, searchThreads, hashMegabytes);
+    Player second = Player.parse(secondSpec, budget, searchThreads, hashMegabytes);
+    Tournament tournament = new Tournament(first, second, mines, maxPlies);
+    long start = System.nanoTime();
+    List<GameResult> results = tournament.run(games, seed, threads);
+    long elapsedNanos = Math.max(1, System.nanoTime() - start);
+    if (recordPath != null) {
+      List<GameRecord> records = new ArrayList<>();
+      for (GameResult result : results) {
+        records.add(result.record);
+      }
+      new GameRecordArchive().write(recordPath, records);
+    }
+
+    int wins = 0;
+    int draws = 0;
+    int losses = 0;
+    int unfinished = 0;
+    long plies = 0;
+    for (GameResult result : results) {
+      if (result.score == 1) {
+        wins++;
+      } else if (result.score == 0) {
+        losses++;
+      } else {
+        draws++;
+      }
+      if (!result.finished) {
+        unfinished++;
+      }
+      plies += result.plies;
+      if (verbose) {
+        System.out.printf(Locale.ROOT, "seed %d %s white: %s in %d plies%s%n", result.seed,
+            result.firstIsWhite ? "A" : "B", result.score == 1 ? "A wins" : result.score == 0 ? "B wins" : "draw",
+            result.plies, result.finished ? "" : " (ply limit)");
+      }
+    }
+    int n = Math.max(1, results.size());
+    double score = (wins + draws / 2.0) / n;
+    double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+        + losses * Math.pow(score, 2)) / n;
+    double margin = Z_95 * Math.sqrt(variance / n);
+    System.out.printf(Locale.ROOT, "A %s vs B %s, %d games, %d mines%n", first, second, results.size(), mines);
+    System.out.printf(Locale.ROOT, "A: +%d =%d -%d (%d hit the ply limit), score %.3f%n", wins, draws, losses,
+        unfinished, score);
+    System.out.printf(Locale.ROOT, "Elo difference %.1f, 95%% interval [%.1f, %.1f]%n", elo(score, n),
+        elo(score - margin, n), elo(score + margin, n));
+    System.out.printf(Locale.ROOT, "average length %.1f plies, %.1f moves/s, time %.3fs%n", plies / (double) n,
+        plies * 1e9 / elapsedNanos, elapsedNanos / 1e9);
+  }
+}
@@ -45,8 +45,8 @@ public class BoardView extends GridPane {
   private boolean showBotFlags;
   private boolean showBothFlags;
   private boolean selectedHasNoMoves;
-  private final boolean[][] lastRevealed = new boolean[SIZE][SIZE];
-  private final boolean[][] lastExploded = new boolean[SIZE][SIZE];
+  private long lastRevealed;
+  private long lastExploded;
   private Square suppressedSquare;
   private Square whiteKingCheck;
   private Square blackKingCheck;
@@ -139,19 +139,24 @@ public class BoardView extends GridPane {
       whiteKingCheck = null;
       blackKingCheck = null;
     }
+    long nowRevealed = 0L;
+    long nowExploded = 0L;
+    if (state != null) {
+      Minefield minefield = state.getMinefield();
+      nowRevealed = minefield.getRevealedMask() | minefield.getArmedMask();
+      nowExploded = minefield.getExplodedMask();
+    }
+    long revealDelta = nowRevealed & ~lastRevealed;
+    long explodeDelta = nowExploded & ~lastExploded;
+    lastRevealed = nowRevealed;
+    lastExploded = nowExploded;
     for (int row = 0; row < SIZE; row++) {
       for (int col = 0; col < SIZE; col++) {
         boolean isSelected = selected != null && selected.getRow() == row && selected.getCol() == col;
         MoveHighlight highlight = findHighlight(row, col);
-        boolean nowRevealed = state != null
-            && (state.getMinefield().isRevealed(row, col) || state.getMinefield().isArmed(row, col));
-        boolean revealTransition = nowRevealed && !lastRevealed[row][col];
-        boolean nowExploded = state != null && state.getMinefield().isExploded(row, col);
-        boolean explodeTransition = nowExploded && !lastExploded[row][col];
+        long bit = 1L << Board.index(row, col);
         cells[row][col].update(state, mode, isSelected, highlight, selectedHasNoMoves,
-            revealTransition, explodeTransition);
-        lastRevealed[row][col] = nowRevealed;
-        lastExploded[row][col] = nowExploded;
+            (revealDelta & bit) != 0, (explodeDelta & bit) != 0);
       }
     }
   }
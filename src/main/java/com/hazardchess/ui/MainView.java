@@ -2,6 +2,7 @@ package com.hazardchess.ui;
 
 import com.hazardchess.ai.AiDifficulty;
 import com.hazardchess.ai.SimpleAi;
+import com.hazardchess.model.Board;
 import com.hazardchess.model.ChessEngine;
 import com.hazardchess.model.GameState;
 import com.hazardchess.model.Minefield;
@@ -9,14 +10,17 @@ import com.hazardchess.model.Move;
 import com.hazardchess.model.Piece;
 import com.hazardchess.model.PieceType;
 import com.hazardchess.model.PlayerColor;
+import com.hazardchess.model.PlayerView;
 import com.hazardchess.model.Square;
-import com.hazardchess.model.io.GameStateJson;
-import com.hazardchess.model.io.GameStateSnapshot;
+import com.hazardchess.model.io.AutosaveService;
+import com.hazardchess.model.io.GameStateStore;
 import java.util.ArrayList;
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import javafx.beans.binding.Bindings;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -51,6 +55,7 @@ import javafx.util.Duration;
 public class MainView extends BorderPane {
   private static final double ICON_SIZE = 24;
   private static final double HUD_HEIGHT = 42;
+  private static final long AUTOSAVE_FLUSH_MILLIS = 2000;
   private final Stage stage;
   private final ToggleButton mineToggle = new ToggleButton("");
   private final Node chessIcon = buildPawnIcon();
@@ -61,7 +66,14 @@ public class MainView extends BorderPane {
   private final Pane moveLayer = new Pane();
   private final ChessEngine engine = new ChessEngine();
   private final SimpleAi ai = new SimpleAi();
-  private final GameStateJson stateJson = new GameStateJson();
+  private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "hazard-ai");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final AtomicLong aiGeneration = new AtomicLong();
+  private PauseTransition aiPause;
+  private final GameStateStore stateStore = new GameStateStore();
   private GameState state;
   private final StackPane endOverlay = new StackPane();
   private final Label endLabel = new Label();
@@ -75,9 +87,11 @@ public class MainView extends BorderPane {
   private int mineCount = 14;
   private boolean aiEnabled = true;
   private final java.nio.file.Path autosavePath =
+      java.nio.file.Paths.get(System.getProperty("user.home"), ".hazard-chess-autosave");
+  private final java.nio.file.Path legacyAutosavePath =
       java.nio.file.Paths.get(System.getProperty("user.home"), ".hazard-chess-autosave.json");
-  private final Deque<GameStateSnapshot> undoStack = new ArrayDeque<>();
-  private final Deque<GameStateSnapshot> redoStack = new ArrayDeque<>();
+  private final AutosaveService autosaver = new AutosaveService(autosavePath);
+  private final UndoHistory history = new UndoHistory();
   private Button undoButton;
   private Button redoButton;
   private ToggleButton botFlagsButton;
@@ -156,6 +170,7 @@ public class MainView extends BorderPane {
     if (!loadAutosave()) {
       GameConfig config = showConfigDialog();
       if (config == null) {
+        shutdown();
         Platform.exit();
         return;
       }
@@ -214,6 +229,7 @@ public class MainView extends BorderPane {
       } else {
         deleteAutosave();
       }
+      shutdown();
       Platform.exit();
     });
 
@@ -238,7 +254,10 @@ public class MainView extends BorderPane {
       stage.setX(event.getScreenX() - dragOffsetX);
       stage.setY(event.getScreenY() - dragOffsetY);
     });
-    stage.setOnCloseRequest(event -> autosave());
+    stage.setOnCloseRequest(event -> {
+      autosave();
+      shutdown();
+    });
     return bar;
   }
 
@@ -283,7 +302,7 @@ public class MainView extends BorderPane {
     dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
 
     ChoiceBox<AiDifficulty> difficultyBox = new ChoiceBox<>();
-    difficultyBox.getItems().addAll(AiDifficulty.EASY, AiDifficulty.NORMAL, AiDifficulty.HARD);
+    difficultyBox.getItems().addAll(AiDifficulty.values());
     difficultyBox.setValue(AiDifficulty.NORMAL);
 
     ChoiceBox<String> modeBox = new ChoiceBox<>();
@@ -329,10 +348,11 @@ public class MainView extends BorderPane {
   }
 
   private void startNewGame(GameConfig config) {
+    cancelAi();
     difficulty = config.difficulty;
     mineCount = config.mineCount;
     aiEnabled = config.botEnabled;
-    state = new GameState(mineCount, new java.util.Random());
+    state = new GameState(mineCount, new java.util.Random().nextLong());
     state.setElapsedSeconds(0);
     state.setBotEnabled(aiEnabled);
     gameOver = false;
@@ -349,17 +369,20 @@ public class MainView extends BorderPane {
     updateStatus();
     updateCapturedPanels();
     resetTimer();
-    undoStack.clear();
-    redoStack.clear();
+    history.clear();
     updateUndoRedoButtons();
     autosave();
   }
   private boolean loadAutosave() {
     try {
-      if (!java.nio.file.Files.exists(autosavePath)) {
+      GameState recovered = autosaver.recover();
+      if (recovered == null && java.nio.file.Files.exists(legacyAutosavePath)) {
+        recovered = stateStore.load(legacyAutosavePath);
+      }
+      if (recovered == null) {
         return false;
       }
-      state = stateJson.load(autosavePath);
+      state = recovered;
       aiEnabled = state.isBotEnabled();
       botFlagsButton.setDisable(!aiEnabled);
       if (!aiEnabled) {
@@ -386,16 +409,13 @@ public class MainView extends BorderPane {
       return;
     }
     syncStateElapsedSeconds();
-    try {
-      stateJson.save(state, autosavePath);
-    } catch (Exception ignored) {
-      // ignore autosave failure
-    }
+    autosaver.request(state);
   }
 
   private void deleteAutosave() {
     try {
-      java.nio.file.Files.deleteIfExists(autosavePath);
+      autosaver.delete();
+      java.nio.file.Files.deleteIfExists(legacyAutosavePath);
     } catch (Exception ignored) {
       // ignore delete failure
     }
@@ -505,9 +525,8 @@ public class MainView extends BorderPane {
     }
 
     Piece movingPiece = state.getBoard().getPiece(move.getFrom().getRow(), move.getFrom().getCol());
-    pushUndoSnapshot();
-    state.applyMove(move);
-    redoStack.clear();
+    syncStateElapsedSeconds();
+    history.apply(state, state.getToMove(), 0L, move);
     clearSelection();
     animateMove(move, movingPiece, () -> {
       updateStatus();
@@ -528,14 +547,15 @@ public class MainView extends BorderPane {
     if (gameOver) {
       return;
     }
-    pushUndoSnapshot();
-    redoStack.clear();
     Minefield minefield = state.getMinefield();
     if (minefield.isRevealed(row, col) && !minefield.isExploded(row, col)) {
       return;
     }
     PlayerColor owner = aiEnabled ? PlayerColor.WHITE : state.getToMove();
-    minefield.toggleFlag(row, col, owner);
+    syncStateElapsedSeconds();
+    if (!history.apply(state, owner, 1L << Board.index(row, col), null)) {
+      return;
+    }
     boardView.refresh();
     autosave();
     updateUndoRedoButtons();
@@ -729,35 +749,75 @@ public class MainView extends BorderPane {
     if (engine.isCheckmate(state, PlayerColor.BLACK)) {
       return;
     }
-    PauseTransition pause = new PauseTransition(Duration.millis(aiDelayMillis()));
-    pause.setOnFinished(event -> {
-      if (state == null || state.getToMove() != PlayerColor.BLACK) {
-        return;
-      }
-      if (gameOver) {
-        return;
-      }
-      boolean flagged = ai.placeFlags(state, difficulty);
-      if (flagged) {
+    cancelAi();
+    long generation = aiGeneration.get();
+    BooleanSupplier cancelled = () -> aiGeneration.get() != generation;
+    PlayerView view = PlayerView.of(state, PlayerColor.BLACK);
+    AiDifficulty level = difficulty;
+    long delayMillis = aiDelayMillis();
+    long startedAt = System.currentTimeMillis();
+    aiExecutor.execute(() -> {
+      long flags = ai.suggestFlags(view, level);
+      Move aiMove = cancelled.getAsBoolean()
+          ? null
+          : ai.chooseMove(view.withFlags(view.getFlaggedMask() | flags), level, cancelled);
+      Platform.runLater(() -> {
+        if (cancelled.getAsBoolean()) {
+          return;
+        }
+        long remaining = delayMillis - (System.currentTimeMillis() - startedAt);
+        aiPause = new PauseTransition(Duration.millis(Math.max(0, remaining)));
+        aiPause.setOnFinished(event -> finishAiTurn(generation, flags, aiMove));
+        aiPause.play();
+      });
+    });
+  }
+
+  private void finishAiTurn(long generation, long flags, Move aiMove) {
+    aiPause = null;
+    if (aiGeneration.get() != generation || state == null || state.getToMove() != PlayerColor.BLACK) {
+      return;
+    }
+    if (gameOver) {
+      return;
+    }
+    long missing = flags & ~state.getMinefield().getFlaggedMask(PlayerColor.BLACK);
+    syncStateElapsedSeconds();
+    if (aiMove == null) {
+      if (history.apply(state, PlayerColor.BLACK, missing, null)) {
         boardView.refresh();
         autosave();
-      }
-      Move aiMove = ai.chooseMove(state, difficulty);
-      if (aiMove == null) {
-        return;
-      }
-      Piece movingPiece = state.getBoard().getPiece(aiMove.getFrom().getRow(), aiMove.getFrom().getCol());
-      pushUndoSnapshot();
-      redoStack.clear();
-      state.applyMove(aiMove);
-      animateMove(aiMove, movingPiece, () -> {
-        updateStatus();
-        updateCapturedPanels();
-        autosave();
         updateUndoRedoButtons();
-      });
+      }
+      return;
+    }
+    Piece movingPiece = state.getBoard().getPiece(aiMove.getFrom().getRow(), aiMove.getFrom().getCol());
+    history.apply(state, PlayerColor.BLACK, missing, aiMove);
+    if (missing != 0) {
+      boardView.refresh();
+    }
+    animateMove(aiMove, movingPiece, () -> {
+      updateStatus();
+      updateCapturedPanels();
+      autosave();
+      updateUndoRedoButtons();
     });
-    pause.play();
+  }
+
+  private void shutdown() {
+    cancelAi();
+    autosaver.flush(AUTOSAVE_FLUSH_MILLIS);
+    autosaver.close();
+    aiExecutor.shutdownNow();
+    ai.close();
+  }
+
+  private void cancelAi() {
+    aiGeneration.incrementAndGet();
+    if (aiPause != null) {
+      aiPause.stop();
+      aiPause = null;
+    }
   }
 
   private void startTimer() {
@@ -847,20 +907,13 @@ public class MainView extends BorderPane {
     return pane;
   }
 
-  private void pushUndoSnapshot() {
-    if (state == null) {
-      return;
-    }
-    undoStack.push(GameStateSnapshot.from(state));
-  }
-
   private void undo() {
-    if (state == null || undoStack.isEmpty()) {
+    if (state == null || !history.canUndo()) {
       return;
     }
-    redoStack.push(GameStateSnapshot.from(state));
-    GameStateSnapshot snapshot = undoStack.pop();
-    state = snapshot.toGameState();
+    cancelAi();
+    syncStateElapsedSeconds();
+    history.undo(state);
     boardView.setGameState(state);
     clearSelection();
     updateMode();
@@ -872,12 +925,12 @@ public class MainView extends BorderPane {
   }
 
   private void redo() {
-    if (state == null || redoStack.isEmpty()) {
+    if (state == null || !history.canRedo()) {
       return;
     }
-    undoStack.push(GameStateSnapshot.from(state));
-    GameStateSnapshot snapshot = redoStack.pop();
-    state = snapshot.toGameState();
+    cancelAi();
+    syncStateElapsedSeconds();
+    history.redo(state);
     boardView.setGameState(state);
     clearSelection();
     updateMode();
@@ -890,10 +943,10 @@ public class MainView extends BorderPane {
 
   private void updateUndoRedoButtons() {
     if (undoButton != null) {
-      undoButton.setDisable(undoStack.isEmpty());
+      undoButton.setDisable(!history.canUndo());
     }
     if (redoButton != null) {
-      redoButton.setDisable(redoStack.isEmpty());
+      redoButton.setDisable(!history.canRedo());
     }
   }
 
@@ -1016,7 +1069,7 @@ public class MainView extends BorderPane {
     return switch (difficulty) {
       case EASY -> 400;
       case NORMAL -> 600;
-      case HARD -> 900;
+      case HARD, EXPERT -> 900;
     };
   }
 
@@ -0,0 +1,100 @@
+package com.hazardchess.ui;
+
+import com.hazardchess.model.Board;
+import com.hazardchess.model.GameState;
+import com.hazardchess.model.Move;
+import com.hazardchess.model.PlayerColor;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+final class UndoHistory {
+  private final Deque<Step> undoSteps = new ArrayDeque<>();
+  private final Deque<Step> redoSteps = new ArrayDeque<>();
+
+  void clear() {
+    undoSteps.clear();
+    redoSteps.clear();
+  }
+
+  boolean canUndo() {
+    return !undoSteps.isEmpty();
+  }
+
+  boolean canRedo() {
+    return !redoSteps.isEmpty();
+  }
+
+  boolean apply(GameState state, PlayerColor flagColor, long flagToggles, Move move) {
+    long elapsedBefore = state.getElapsedSeconds();
+    long toggled = toggleFlags(state, flagColor, flagToggles);
+    boolean moved = move != null && state.applyMove(move);
+    if (toggled == 0 && !moved) {
+      return false;
+    }
+    if (!moved) {
+      state.setRedoStack(null);
+    }
+    undoSteps.push(new Step(flagColor, toggled, moved, elapsedBefore));
+    redoSteps.clear();
+    return true;
+  }
+
+  boolean undo(GameState state) {
+    Step step = undoSteps.poll();
+    if (step == null) {
+      return false;
+    }
+    if (step.moved) {
+      state.undo();
+    }
+    for (long pending = step.flags; pending != 0; ) {
+      int square = 63 - Long.numberOfLeadingZeros(pending);
+      pending &= ~(1L << square);
+      state.unmakeFlag(Board.rowOf(square), Board.colOf(square), step.flagColor);
+    }
+    step.elapsedAfter = state.getElapsedSeconds();
+    state.setElapsedSeconds(step.elapsedBefore);
+    redoSteps.push(step);
+    return true;
+  }
+
+  boolean redo(GameState state) {
+    Step step = redoSteps.poll();
+    if (step == null) {
+      return false;
+    }
+    toggleFlags(state, step.flagColor, step.flags);
+    if (step.moved) {
+      state.redo();
+    }
+    state.setElapsedSeconds(step.elapsedAfter);
+    undoSteps.push(step);
+    return true;
+  }
+
+  private static long toggleFlags(GameState state, PlayerColor color, long squares) {
+    long toggled = 0L;
+    for (long pending = squares; pending != 0; pending &= pending - 1) {
+      int square = Long.numberOfTrailingZeros(pending);
+      if (state.toggleFlag(Board.rowOf(square), Board.colOf(square), color)) {
+        toggled |= 1L << square;
+      }
+    }
+    return toggled;
+  }
+
+  private static final class Step {
+    private final PlayerColor flagColor;
+    private final long flags;
+    private final boolean moved;
+    private final long elapsedBefore;
+    private long elapsedAfter;
+
+    private Step(PlayerColor flagColor, long flags, boolean moved, long elapsedBefore) {
+      this.flagColor = flagColor;
+      this.flags = flags;
+      this.moved = moved;
+      this.elapsedBefore = elapsedBefore;
+    }
+  }
+}
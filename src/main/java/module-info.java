@@ -9,4 +9,5 @@ module com.hazardchess {
   exports com.hazardchess.ui;
   exports com.hazardchess.model;
   exports com.hazardchess.model.io;
+  exports com.hazardchess.tools;
 }